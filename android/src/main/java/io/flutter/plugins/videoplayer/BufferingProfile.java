@@ -0,0 +1,159 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.LoadControl;
+import java.util.Map;
+
+/**
+ * Buffer sizing for a player, either one of the named presets or explicit values.
+ *
+ * <p>The {@link LoadControl} is fixed when a player is built, so pooled players are only reused
+ * for a profile with the same {@link #key()}.
+ */
+final class BufferingProfile {
+  static final BufferingProfile DEFAULT =
+      new BufferingProfile(
+          DefaultLoadControl.DEFAULT_MIN_BUFFER_MS,
+          DefaultLoadControl.DEFAULT_MAX_BUFFER_MS,
+          DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS,
+          DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS,
+          C.LENGTH_UNSET,
+          DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS);
+
+  /** Starts playback on a small buffer and keeps a moderate one, for feeds. */
+  static final BufferingProfile FAST_START =
+      new BufferingProfile(15_000, 30_000, 1_000, 2_000, C.LENGTH_UNSET, 0);
+
+  /** Keeps only a few seconds and a hard byte cap, for grids of previews. */
+  static final BufferingProfile LOW_MEMORY =
+      new BufferingProfile(5_000, 10_000, 1_000, 2_000, 2 * 1024 * 1024, 0);
+
+  /** Buffers far ahead and keeps some back buffer, for full-screen VOD. */
+  static final BufferingProfile LONG_BUFFER =
+      new BufferingProfile(60_000, 120_000, 2_500, 5_000, C.LENGTH_UNSET, 30_000);
+
+  final int minBufferMs;
+  final int maxBufferMs;
+  final int bufferForPlaybackMs;
+  final int bufferForPlaybackAfterRebufferMs;
+  final int targetBufferBytes;
+  final int backBufferMs;
+
+  BufferingProfile(
+      int minBufferMs,
+      int maxBufferMs,
+      int bufferForPlaybackMs,
+      int bufferForPlaybackAfterRebufferMs,
+      int targetBufferBytes,
+      int backBufferMs) {
+    this.minBufferMs = minBufferMs;
+    this.maxBufferMs = maxBufferMs;
+    this.bufferForPlaybackMs = bufferForPlaybackMs;
+    this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+    this.targetBufferBytes = targetBufferBytes;
+    this.backBufferMs = backBufferMs;
+  }
+
+  /**
+   * Resolves the profile named {@code name}, with any values in {@code overrides} replacing the
+   * preset ones.
+   *
+   * @throws IllegalArgumentException if the name is unknown or the durations are inconsistent.
+   */
+  static BufferingProfile fromArguments(
+      @Nullable String name, @Nullable Map<String, Object> overrides) {
+    BufferingProfile preset = forName(name);
+    if (overrides == null || overrides.isEmpty()) {
+      return preset;
+    }
+    BufferingProfile profile =
+        new BufferingProfile(
+            intValue(overrides, "minBufferMs", preset.minBufferMs),
+            intValue(overrides, "maxBufferMs", preset.maxBufferMs),
+            intValue(overrides, "bufferForPlaybackMs", preset.bufferForPlaybackMs),
+            intValue(
+                overrides,
+                "bufferForPlaybackAfterRebufferMs",
+                preset.bufferForPlaybackAfterRebufferMs),
+            intValue(overrides, "targetBufferBytes", preset.targetBufferBytes),
+            intValue(overrides, "backBufferMs", preset.backBufferMs));
+    profile.validate();
+    return profile;
+  }
+
+  private static BufferingProfile forName(@Nullable String name) {
+    if (name == null || name.equals("default")) {
+      return DEFAULT;
+    }
+    switch (name) {
+      case "fastStart":
+        return FAST_START;
+      case "lowMemory":
+        return LOW_MEMORY;
+      case "longBuffer":
+        return LONG_BUFFER;
+      default:
+        throw new IllegalArgumentException("Unknown buffering profile: " + name);
+    }
+  }
+
+  private static int intValue(Map<String, Object> values, String key, int defaultValue) {
+    Object value = values.get(key);
+    return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+  }
+
+  private void validate() {
+    if (bufferForPlaybackMs < 0
+        || bufferForPlaybackAfterRebufferMs < 0
+        || minBufferMs < bufferForPlaybackMs
+        || minBufferMs < bufferForPlaybackAfterRebufferMs
+        || maxBufferMs < minBufferMs
+        || backBufferMs < 0) {
+      throw new IllegalArgumentException("Inconsistent buffer durations: " + key());
+    }
+  }
+
+  /** Returns this profile without back buffer, or this profile itself if it keeps none. */
+  BufferingProfile withoutBackBuffer() {
+    if (backBufferMs == 0) {
+      return this;
+    }
+    return new BufferingProfile(
+        minBufferMs,
+        maxBufferMs,
+        bufferForPlaybackMs,
+        bufferForPlaybackAfterRebufferMs,
+        targetBufferBytes,
+        /* backBufferMs= */ 0);
+  }
+
+  LoadControl buildLoadControl() {
+    return new DefaultLoadControl.Builder()
+        .setBufferDurationsMs(
+            minBufferMs, maxBufferMs, bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs)
+        .setTargetBufferBytes(targetBufferBytes)
+        .setBackBuffer(backBufferMs, /* retainBackBufferFromKeyframe= */ false)
+        .build();
+  }
+
+  /** Identifies players whose load controls are interchangeable. */
+  String key() {
+    return minBufferMs
+        + "/"
+        + maxBufferMs
+        + "/"
+        + bufferForPlaybackMs
+        + "/"
+        + bufferForPlaybackAfterRebufferMs
+        + "/"
+        + targetBufferBytes
+        + "/"
+        + backBufferMs;
+  }
+}
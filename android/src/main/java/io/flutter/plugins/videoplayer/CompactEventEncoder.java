@@ -0,0 +1,105 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Encodes the frequent player events as small byte arrays instead of maps.
+ *
+ * <p>An event is one type byte followed by its little-endian fields:
+ *
+ * <ul>
+ *   <li>{@link #INITIALIZED}: duration (int64), width (int32), height (int32); -1 for an unknown
+ *       size.
+ *   <li>{@link #POSITION}: position (int64), buffered position (int64).
+ *   <li>{@link #SEEK_COMPLETED}: position (int64).
+ *   <li>{@link #BUFFERING_START}, {@link #BUFFERING_END}, {@link #PLAYED}, {@link #PAUSED}: none.
+ * </ul>
+ *
+ * <p>Events without fields are shared constant arrays. Any other event is written straight into
+ * an array of its exact size. That array is the only allocation, and it cannot be reused because
+ * the event may wait in a {@link QueuingEventSink}. Must be kept in sync with the compact event
+ * listener in {@code VideoPlayerController.initialize} in Dart.
+ *
+ * <p>Instances hold no state and may be shared between threads.
+ */
+final class CompactEventEncoder {
+  static final byte INITIALIZED = 1;
+  static final byte BUFFERING_START = 2;
+  static final byte BUFFERING_END = 3;
+  static final byte PLAYED = 4;
+  static final byte PAUSED = 5;
+  static final byte POSITION = 6;
+  static final byte SEEK_COMPLETED = 7;
+
+  // Indexed by type code, matching the "event" names of the map format.
+  private static final String[] NAMES = {
+    null, "initialized", "bufferingStart", "bufferingEnd", "played", "paused", "position",
+    "seekCompleted"
+  };
+
+  // Indexed by type code. The codec only reads them, so they can be handed out repeatedly.
+  private static final byte[][] FIELDLESS = new byte[NAMES.length][];
+
+  static {
+    for (byte type = 1; type < NAMES.length; type++) {
+      FIELDLESS[type] = new byte[] {type};
+    }
+  }
+
+  /** Returns the map format name of an encoded event, or null if it is not one. */
+  @Nullable
+  static String typeName(Object event) {
+    if (!(event instanceof byte[])) {
+      return null;
+    }
+    byte[] bytes = (byte[]) event;
+    if (bytes.length == 0 || bytes[0] <= 0 || bytes[0] >= NAMES.length) {
+      return null;
+    }
+    return NAMES[bytes[0]];
+  }
+
+  byte[] encode(byte type) {
+    return FIELDLESS[type];
+  }
+
+  byte[] encode(byte type, long value) {
+    byte[] bytes = new byte[1 + 8];
+    bytes[0] = type;
+    putLong(bytes, 1, value);
+    return bytes;
+  }
+
+  byte[] encode(byte type, long first, long second) {
+    byte[] bytes = new byte[1 + 8 + 8];
+    bytes[0] = type;
+    putLong(bytes, 1, first);
+    putLong(bytes, 9, second);
+    return bytes;
+  }
+
+  byte[] encodeInitialized(long durationMs, int width, int height) {
+    byte[] bytes = new byte[1 + 8 + 4 + 4];
+    bytes[0] = INITIALIZED;
+    putLong(bytes, 1, durationMs);
+    putInt(bytes, 9, width);
+    putInt(bytes, 13, height);
+    return bytes;
+  }
+
+  private static void putLong(byte[] bytes, int offset, long value) {
+    for (int i = 0; i < 8; i++) {
+      bytes[offset + i] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    for (int i = 0; i < 4; i++) {
+      bytes[offset + i] = (byte) (value >>> (8 * i));
+    }
+  }
+}
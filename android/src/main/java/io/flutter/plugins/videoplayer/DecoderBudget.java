@@ -0,0 +1,90 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+
+/**
+ * Bounds how many players hold decoders and buffers at once.
+ *
+ * <p>A player counts as active from creation until it is hibernated or disposed, and is used
+ * whenever it is created, played or seeked. Once more players are active than the budget allows,
+ * the least recently used offscreen one is hibernated, then the least recently used paused one.
+ * Visible players that are playing are never hibernated; if only those are left, the budget is
+ * exceeded until one of them is paused, hidden or disposed. Using a hibernated player restores it,
+ * resuming playback if it was playing when hibernated.
+ *
+ * <p>This class is not thread-safe. All calls must be done on the platform thread.
+ */
+final class DecoderBudget {
+  /** A budget of zero or less leaves the number of active players unbounded. */
+  static final int UNLIMITED = 0;
+
+  // Ordered from least to most recently used.
+  private final ArrayList<VideoPlayer> activePlayers = new ArrayList<>();
+  private int maxActivePlayers = UNLIMITED;
+
+  void configure(int maxActivePlayers) {
+    this.maxActivePlayers = maxActivePlayers;
+    enforce(null);
+  }
+
+  /** Marks {@code player} as the most recently used one, restoring it if it was hibernated. */
+  void use(VideoPlayer player) {
+    if (player.isHibernated()) {
+      player.restore();
+    }
+    activePlayers.remove(player);
+    activePlayers.add(player);
+    enforce(player);
+  }
+
+  /** Hibernates {@code player} regardless of the budget; using it again restores it. */
+  void hibernate(VideoPlayer player) {
+    activePlayers.remove(player);
+    player.hibernate();
+  }
+
+  void remove(VideoPlayer player) {
+    activePlayers.remove(player);
+  }
+
+  void clear() {
+    activePlayers.clear();
+  }
+
+  /** Hibernates players other than {@code keep} until the budget is met. */
+  private void enforce(@Nullable VideoPlayer keep) {
+    if (maxActivePlayers <= UNLIMITED) {
+      return;
+    }
+    while (activePlayers.size() > maxActivePlayers) {
+      VideoPlayer victim = pickVictim(keep);
+      if (victim == null) {
+        return;
+      }
+      activePlayers.remove(victim);
+      victim.hibernate();
+    }
+  }
+
+  @Nullable
+  private VideoPlayer pickVictim(@Nullable VideoPlayer keep) {
+    VideoPlayer paused = null;
+    for (VideoPlayer player : activePlayers) {
+      if (player == keep) {
+        continue;
+      }
+      if (!player.isVisible()) {
+        return player;
+      }
+      if (paused == null && !player.isPlayWhenReady()) {
+        paused = player;
+      }
+    }
+    return paused;
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A bounded pool of idle {@link SimpleExoPlayer} instances.
+ *
+ * <p>Building a player spins up its renderers, internal playback thread and allocator. Disposed
+ * players are stopped, reset and parked here instead of being released, so the next {@code create}
+ * can skip that work. Players idle for longer than the idle timeout are released.
+ *
+ * <p>This class is not thread-safe. All calls must be done on the platform thread.
+ */
+final class ExoPlayerPool {
+  static final int DEFAULT_MAX_SIZE = 2;
+  static final long DEFAULT_IDLE_TIMEOUT_MS = 30_000;
+
+  /** A pooled player together with the track selector and bandwidth meter it was built with. */
+  static final class PooledPlayer {
+    final SimpleExoPlayer player;
+    final DefaultTrackSelector trackSelector;
+    final SharedBandwidthMeter bandwidthMeter;
+    final BufferingProfile bufferingProfile;
+    private long releasedAtMs;
+
+    private PooledPlayer(
+        SimpleExoPlayer player,
+        DefaultTrackSelector trackSelector,
+        SharedBandwidthMeter bandwidthMeter,
+        BufferingProfile bufferingProfile) {
+      this.player = player;
+      this.trackSelector = trackSelector;
+      this.bandwidthMeter = bandwidthMeter;
+      this.bufferingProfile = bufferingProfile;
+    }
+  }
+
+  private final Context context;
+  private final ArrayDeque<PooledPlayer> idlePlayers = new ArrayDeque<>();
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable evictIdlePlayers = this::evictIdlePlayers;
+  private int maxSize = DEFAULT_MAX_SIZE;
+  private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+
+  ExoPlayerPool(Context context) {
+    this.context = context;
+  }
+
+  void configure(int maxSize, long idleTimeoutMs) {
+    this.maxSize = Math.max(0, maxSize);
+    this.idleTimeoutMs = Math.max(0, idleTimeoutMs);
+    while (idlePlayers.size() > this.maxSize) {
+      idlePlayers.pollLast().player.release();
+    }
+    scheduleEviction();
+  }
+
+  /**
+   * Returns the most recently parked player built for {@code bufferingProfile}, or null if there is
+   * none.
+   */
+  @Nullable
+  PooledPlayer acquireIdle(BufferingProfile bufferingProfile) {
+    String profileKey = bufferingProfile.key();
+    for (Iterator<PooledPlayer> iterator = idlePlayers.iterator(); iterator.hasNext(); ) {
+      PooledPlayer pooled = iterator.next();
+      if (pooled.bufferingProfile.key().equals(profileKey)) {
+        iterator.remove();
+        return pooled;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Builds a new player for {@code bufferingProfile}.
+   *
+   * <p>Unlike the rest of this class this may be called from any thread. The player is bound to the
+   * main looper, so it must only be used on the platform thread afterwards.
+   */
+  static PooledPlayer build(Context context, BufferingProfile bufferingProfile) {
+    DefaultTrackSelector trackSelector = new DefaultTrackSelector(context);
+    SharedBandwidthMeter bandwidthMeter = new SharedBandwidthMeter(context);
+    SimpleExoPlayer player =
+        new SimpleExoPlayer.Builder(context)
+            .setTrackSelector(trackSelector)
+            .setBandwidthMeter(bandwidthMeter)
+            .setLoadControl(bufferingProfile.buildLoadControl())
+            .setLooper(Looper.getMainLooper())
+            .build();
+    return new PooledPlayer(player, trackSelector, bandwidthMeter, bufferingProfile);
+  }
+
+  /**
+   * Resets {@code pooled} and parks it for reuse, or releases it when the pool is full.
+   *
+   * <p>Callers must have removed their listeners beforehand.
+   */
+  void release(PooledPlayer pooled) {
+    SimpleExoPlayer player = pooled.player;
+    if (idlePlayers.size() >= maxSize) {
+      player.release();
+      return;
+    }
+    player.stop(true);
+    player.clearVideoSurface();
+    player.setPlayWhenReady(false);
+    player.setRepeatMode(Player.REPEAT_MODE_OFF);
+    player.setVolume(1f);
+    player.setPlaybackParameters(PlaybackParameters.DEFAULT);
+    pooled.trackSelector.setParameters(DefaultTrackSelector.Parameters.getDefaults(context));
+    pooled.bandwidthMeter.setInitialBitrateEstimate(0);
+    pooled.releasedAtMs = SystemClock.elapsedRealtime();
+    idlePlayers.addFirst(pooled);
+    scheduleEviction();
+  }
+
+  void clear() {
+    handler.removeCallbacks(evictIdlePlayers);
+    for (PooledPlayer pooled : idlePlayers) {
+      pooled.player.release();
+    }
+    idlePlayers.clear();
+  }
+
+  private void scheduleEviction() {
+    handler.removeCallbacks(evictIdlePlayers);
+    PooledPlayer oldest = idlePlayers.peekLast();
+    if (oldest != null) {
+      long delayMs = oldest.releasedAtMs + idleTimeoutMs - SystemClock.elapsedRealtime();
+      handler.postDelayed(evictIdlePlayers, Math.max(0, delayMs));
+    }
+  }
+
+  private void evictIdlePlayers() {
+    long now = SystemClock.elapsedRealtime();
+    Iterator<PooledPlayer> iterator = idlePlayers.descendingIterator();
+    while (iterator.hasNext()) {
+      PooledPlayer pooled = iterator.next();
+      if (now - pooled.releasedAtMs < idleTimeoutMs) {
+        break;
+      }
+      iterator.remove();
+      pooled.player.release();
+    }
+    scheduleEviction();
+  }
+}
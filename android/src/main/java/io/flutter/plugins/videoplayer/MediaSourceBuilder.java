@@ -0,0 +1,76 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.MediaItem;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.ProgressiveMediaSource;
+import com.google.android.exoplayer2.source.dash.DashMediaSource;
+import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
+import com.google.android.exoplayer2.source.hls.HlsMediaSource;
+import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
+import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
+import com.google.android.exoplayer2.util.Util;
+import java.util.Map;
+
+/**
+ * Builds the {@link MediaSource}s of one player.
+ *
+ * <p>Local URIs are read directly; network ones go through the HTTP stack and, if the player opted
+ * in, the shared cache. Safe to use from any thread.
+ */
+final class MediaSourceBuilder {
+  private final Context context;
+  private final DataSource.Factory networkDataSourceFactory;
+
+  MediaSourceBuilder(
+      Context context, @Nullable Map<String, String> headers, @Nullable VideoPlayerCache cache) {
+    this.context = context;
+    DataSource.Factory factory = VideoPlayerHttpStack.getInstance().buildDataSourceFactory(headers);
+    networkDataSourceFactory = cache == null ? factory : cache.buildDataSourceFactory(factory);
+  }
+
+  /**
+   * @throws IllegalArgumentException if {@code dataSource} has no scheme or an unsupported type.
+   */
+  MediaSource build(String dataSource, @Nullable String cacheKey) {
+    Uri uri = Uri.parse(dataSource);
+    String scheme = uri.getScheme();
+    if (scheme == null) {
+      throw new IllegalArgumentException("Missing scheme in " + dataSource);
+    }
+    DataSource.Factory dataSourceFactory =
+        scheme.equals("asset") || scheme.equals("file")
+            ? new DefaultDataSourceFactory(context, "ExoPlayer")
+            : networkDataSourceFactory;
+    MediaItem mediaItem = new MediaItem.Builder().setUri(uri).setCustomCacheKey(cacheKey).build();
+
+    int type = Util.inferContentType(uri.getLastPathSegment());
+    switch (type) {
+      case C.TYPE_SS:
+        return new SsMediaSource.Factory(
+                new DefaultSsChunkSource.Factory(dataSourceFactory),
+                new DefaultDataSourceFactory(context, null, dataSourceFactory))
+            .createMediaSource(mediaItem);
+      case C.TYPE_DASH:
+        return new DashMediaSource.Factory(
+                new DefaultDashChunkSource.Factory(dataSourceFactory),
+                new DefaultDataSourceFactory(context, null, dataSourceFactory))
+            .createMediaSource(mediaItem);
+      case C.TYPE_HLS:
+        return new HlsMediaSource.Factory(dataSourceFactory).createMediaSource(mediaItem);
+      case C.TYPE_OTHER:
+        return new ProgressiveMediaSource.Factory(dataSourceFactory).createMediaSource(mediaItem);
+      default:
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Translates the system's trim-memory levels into tiers of increasingly drastic responses.
+ *
+ * <p>Each tier includes the responses of the ones below it:
+ *
+ * <ol>
+ *   <li>{@link #TIER_TRIM_CACHES}: drop in-memory caches and parked players.
+ *   <li>{@link #TIER_DROP_BACK_BUFFER}: drop preloaded players and build new players without back
+ *       buffer, keeping the rest of their buffering profile.
+ *   <li>{@link #TIER_CAP_TRACKS}: cap video track selection to {@link #CAPPED_MAX_VIDEO_WIDTH} x
+ *       {@link #CAPPED_MAX_VIDEO_HEIGHT}.
+ *   <li>{@link #TIER_RELEASE_PAUSED}: hibernate paused players, releasing their codecs.
+ * </ol>
+ *
+ * <p>The system does not signal when pressure is over, so the tier is held for {@link
+ * #DEFAULT_HOLD_MS} after the last signal and then relieved.
+ *
+ * <p>The system calls back on the main thread; {@link #onTrimMemory} must only be called there.
+ */
+final class MemoryPressure implements ComponentCallbacks2 {
+  static final int TIER_NONE = 0;
+  static final int TIER_TRIM_CACHES = 1;
+  static final int TIER_DROP_BACK_BUFFER = 2;
+  static final int TIER_CAP_TRACKS = 3;
+  static final int TIER_RELEASE_PAUSED = 4;
+
+  static final int CAPPED_MAX_VIDEO_WIDTH = 854;
+  static final int CAPPED_MAX_VIDEO_HEIGHT = 480;
+  static final long DEFAULT_HOLD_MS = 60_000;
+
+  interface Listener {
+    /** Called for every trim signal, with the tier it maps to. */
+    void onMemoryPressure(int tier, int level);
+
+    /** Called once no signal came in for the hold time. */
+    void onMemoryPressureRelieved();
+  }
+
+  private final Listener listener;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable relieve = this::relieve;
+  private int tier = TIER_NONE;
+
+  MemoryPressure(Listener listener) {
+    this.listener = listener;
+  }
+
+  /** The highest tier signalled since pressure was last relieved. */
+  int getTier() {
+    return tier;
+  }
+
+  static int tierFor(int level) {
+    if (level >= TRIM_MEMORY_MODERATE) {
+      return TIER_RELEASE_PAUSED;
+    }
+    if (level >= TRIM_MEMORY_BACKGROUND) {
+      return TIER_DROP_BACK_BUFFER;
+    }
+    switch (level) {
+      case TRIM_MEMORY_RUNNING_CRITICAL:
+        return TIER_RELEASE_PAUSED;
+      case TRIM_MEMORY_RUNNING_LOW:
+        return TIER_CAP_TRACKS;
+      case TRIM_MEMORY_RUNNING_MODERATE:
+        return TIER_TRIM_CACHES;
+      default:
+        // TRIM_MEMORY_UI_HIDDEN only says the UI went away, not that memory is short.
+        return TIER_NONE;
+    }
+  }
+
+  @Override
+  public void onTrimMemory(int level) {
+    int levelTier = tierFor(level);
+    if (levelTier == TIER_NONE) {
+      return;
+    }
+    tier = Math.max(tier, levelTier);
+    handler.removeCallbacks(relieve);
+    handler.postDelayed(relieve, DEFAULT_HOLD_MS);
+    listener.onMemoryPressure(levelTier, level);
+  }
+
+  @Override
+  public void onLowMemory() {
+    onTrimMemory(TRIM_MEMORY_COMPLETE);
+  }
+
+  @Override
+  public void onConfigurationChanged(Configuration newConfig) {}
+
+  /** Stops the hold timer without notifying the listener. */
+  void release() {
+    handler.removeCallbacks(relieve);
+    tier = TIER_NONE;
+  }
+
+  private void relieve() {
+    tier = TIER_NONE;
+    listener.onMemoryPressureRelieved();
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.os.SystemClock;
+import android.view.Surface;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.source.LoadEventInfo;
+import com.google.android.exoplayer2.source.MediaLoadData;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects quality-of-experience metrics for one player.
+ *
+ * <p>Times are measured from the moment the tracker is created, which is when the {@link
+ * VideoPlayer} starts preparing. A rebuffer is a stall after playback started that was not caused
+ * by a seek.
+ */
+final class PlaybackStatsTracker implements AnalyticsListener {
+  private final long createdAtMs = SystemClock.elapsedRealtime();
+
+  private long timeToFirstFrameMs = C.TIME_UNSET;
+  private long joinRequestedAtMs = C.TIME_UNSET;
+  private long joinTimeMs = C.TIME_UNSET;
+
+  private boolean playWhenReady;
+  private boolean isSeeking;
+  private long rebufferStartedAtMs = C.TIME_UNSET;
+  private int rebufferCount;
+  private long rebufferDurationMs;
+
+  private long droppedFrames;
+  private int bitrateSwitches;
+  private int videoBitrate = Format.NO_VALUE;
+  private long bandwidthEstimate;
+  private long bytesLoaded;
+
+  @Override
+  public void onRenderedFirstFrame(EventTime eventTime, @Nullable Surface surface) {
+    if (timeToFirstFrameMs == C.TIME_UNSET) {
+      timeToFirstFrameMs = eventTime.realtimeMs - createdAtMs;
+    }
+  }
+
+  @Override
+  public void onPlayWhenReadyChanged(EventTime eventTime, boolean playWhenReady, int reason) {
+    this.playWhenReady = playWhenReady;
+    if (playWhenReady && joinRequestedAtMs == C.TIME_UNSET) {
+      joinRequestedAtMs = eventTime.realtimeMs;
+    }
+    if (!playWhenReady) {
+      endRebuffer(eventTime.realtimeMs);
+    }
+  }
+
+  @Override
+  public void onIsPlayingChanged(EventTime eventTime, boolean isPlaying) {
+    if (isPlaying && joinTimeMs == C.TIME_UNSET && joinRequestedAtMs != C.TIME_UNSET) {
+      joinTimeMs = eventTime.realtimeMs - joinRequestedAtMs;
+    }
+  }
+
+  @Override
+  public void onSeekStarted(EventTime eventTime) {
+    isSeeking = true;
+    endRebuffer(eventTime.realtimeMs);
+  }
+
+  @Override
+  public void onPlaybackStateChanged(EventTime eventTime, int state) {
+    if (state == Player.STATE_BUFFERING) {
+      boolean hasJoined = joinTimeMs != C.TIME_UNSET;
+      if (hasJoined && playWhenReady && !isSeeking && rebufferStartedAtMs == C.TIME_UNSET) {
+        rebufferCount++;
+        rebufferStartedAtMs = eventTime.realtimeMs;
+      }
+    } else {
+      isSeeking = false;
+      endRebuffer(eventTime.realtimeMs);
+    }
+  }
+
+  @Override
+  public void onDroppedVideoFrames(EventTime eventTime, int droppedFrames, long elapsedMs) {
+    this.droppedFrames += droppedFrames;
+  }
+
+  @Override
+  public void onDownstreamFormatChanged(EventTime eventTime, MediaLoadData mediaLoadData) {
+    Format format = mediaLoadData.trackFormat;
+    if (format == null
+        || (mediaLoadData.trackType != C.TRACK_TYPE_VIDEO
+            && mediaLoadData.trackType != C.TRACK_TYPE_DEFAULT)
+        || format.bitrate == Format.NO_VALUE) {
+      return;
+    }
+    if (videoBitrate != Format.NO_VALUE && videoBitrate != format.bitrate) {
+      bitrateSwitches++;
+    }
+    videoBitrate = format.bitrate;
+  }
+
+  @Override
+  public void onBandwidthEstimate(
+      EventTime eventTime, int totalLoadTimeMs, long totalBytesLoaded, long bitrateEstimate) {
+    bandwidthEstimate = bitrateEstimate;
+  }
+
+  @Override
+  public void onLoadCompleted(
+      EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+    bytesLoaded += loadEventInfo.bytesLoaded;
+  }
+
+  private void endRebuffer(long nowMs) {
+    if (rebufferStartedAtMs != C.TIME_UNSET) {
+      rebufferDurationMs += nowMs - rebufferStartedAtMs;
+      rebufferStartedAtMs = C.TIME_UNSET;
+    }
+  }
+
+  /** Returns the current metrics. Unknown times are reported as null. */
+  Map<String, Object> getStats() {
+    long ongoingRebufferMs =
+        rebufferStartedAtMs == C.TIME_UNSET
+            ? 0
+            : SystemClock.elapsedRealtime() - rebufferStartedAtMs;
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("timeToFirstFrameMs", timeToFirstFrameMs == C.TIME_UNSET ? null : timeToFirstFrameMs);
+    stats.put("joinTimeMs", joinTimeMs == C.TIME_UNSET ? null : joinTimeMs);
+    stats.put("rebufferCount", rebufferCount);
+    stats.put("rebufferDurationMs", rebufferDurationMs + ongoingRebufferMs);
+    stats.put("droppedFrames", droppedFrames);
+    stats.put("bitrateSwitches", bitrateSwitches);
+    stats.put("videoBitrate", videoBitrate == Format.NO_VALUE ? null : videoBitrate);
+    stats.put("bandwidthEstimate", bandwidthEstimate);
+    stats.put("bytesLoaded", bytesLoaded);
+    return stats;
+  }
+}
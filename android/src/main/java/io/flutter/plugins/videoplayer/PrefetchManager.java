@@ -0,0 +1,758 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.MediaItem;
+import com.google.android.exoplayer2.offline.Downloader;
+import com.google.android.exoplayer2.offline.ProgressiveDownloader;
+import com.google.android.exoplayer2.offline.StreamKey;
+import com.google.android.exoplayer2.source.dash.manifest.AdaptationSet;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifestParser;
+import com.google.android.exoplayer2.source.dash.manifest.Period;
+import com.google.android.exoplayer2.source.dash.offline.DashDownloader;
+import com.google.android.exoplayer2.source.hls.offline.HlsDownloader;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMasterPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.ParsingLoadable;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheWriter;
+import com.google.android.exoplayer2.util.Util;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetches network videos into the shared {@link VideoPlayerCache} ahead of playback.
+ *
+ * <p>Prefetches wait in a queue ordered by priority, then by age, and at most {@link
+ * #DEFAULT_MAX_CONCURRENT} of them run at once on background threads. A progressive video can be
+ * fetched up to a byte length, so that only its start is stored; HLS and DASH videos are fetched
+ * whole, either every rendition or only the best one within a bitrate. Prefetches that require an
+ * unmetered network stay queued while the device is on a metered one and start once it is not.
+ *
+ * <p>Since the data lands in the shared cache under the keys players use, a player created later
+ * for the same URI reads it without going to the network. Finished prefetches are bounded by a
+ * byte quota; once they exceed it, the least recently used ones are removed from the cache. The
+ * cache's own size cap still applies on top of that.
+ *
+ * <p>Prefetches are identified by their URI and are not persisted: the cached data outlives the
+ * process, but this bookkeeping does not.
+ *
+ * <p>This class is not thread-safe. All calls must be done on the platform thread, and the
+ * listener is called there.
+ */
+final class PrefetchManager {
+  static final int DEFAULT_MAX_CONCURRENT = 2;
+  static final long DEFAULT_QUOTA_BYTES = 128L * 1024 * 1024;
+  private static final long PROGRESS_INTERVAL_MS = 250;
+
+  static final String STATE_QUEUED = "queued";
+  static final String STATE_FETCHING = "fetching";
+  static final String STATE_COMPLETED = "completed";
+  static final String STATE_FAILED = "failed";
+  static final String STATE_CANCELLED = "cancelled";
+  static final String STATE_REMOVED = "removed";
+
+  interface Listener {
+    /** Called with {@link Prefetch#toMap()} whenever a prefetch changes state or makes progress. */
+    void onPrefetchChanged(Map<String, Object> prefetch);
+  }
+
+  private final Context context;
+  private final Listener listener;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final ExecutorService workers =
+      Executors.newCachedThreadPool(runnable -> new Thread(runnable, "VideoPrefetch"));
+  private final LinkedHashMap<String, Prefetch> prefetches = new LinkedHashMap<>();
+  private final PriorityQueue<Prefetch> queue =
+      new PriorityQueue<>(
+          11,
+          (a, b) ->
+              a.priority != b.priority
+                  ? Integer.compare(b.priority, a.priority)
+                  : Long.compare(a.sequence, b.sequence));
+  private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+  private long quotaBytes = DEFAULT_QUOTA_BYTES;
+  private int running;
+  private long nextSequence;
+  // Advanced when a prefetch is queued or used by a player; status queries leave it alone.
+  private long useCount;
+  // One of the two is set while a prefetch waits for the network, depending on the API level.
+  @Nullable private ConnectivityManager.NetworkCallback networkCallback;
+  @Nullable private BroadcastReceiver connectivityReceiver;
+
+  PrefetchManager(Context context, Listener listener) {
+    this.context = context;
+    this.listener = listener;
+  }
+
+  void configure(@Nullable Number maxConcurrent, @Nullable Number quotaBytes) {
+    if (maxConcurrent != null) {
+      this.maxConcurrent = Math.max(1, maxConcurrent.intValue());
+    }
+    if (quotaBytes != null) {
+      this.quotaBytes = quotaBytes.longValue();
+      enforceQuota();
+    }
+    startNext();
+  }
+
+  /**
+   * Queues a prefetch of {@code uri}, replacing a finished or failed one of the same URI. Does
+   * nothing but update the priority if one is already queued or running.
+   *
+   * @param lengthBytes how much of a progressive video to fetch, or {@link C#LENGTH_UNSET} for all
+   *     of it. Ignored for HLS and DASH.
+   * @param maxBitrate the highest rendition bitrate to fetch for HLS and DASH, or 0 for every
+   *     rendition.
+   * @throws IllegalArgumentException if {@code uri} is not a network URI of a supported type.
+   */
+  Map<String, Object> enqueue(
+      String uri,
+      @Nullable Map<String, String> headers,
+      @Nullable String cacheKey,
+      int priority,
+      long lengthBytes,
+      int maxBitrate,
+      boolean requiresUnmetered) {
+    Uri parsed = Uri.parse(uri);
+    if (!"http".equals(parsed.getScheme()) && !"https".equals(parsed.getScheme())) {
+      throw new IllegalArgumentException("Only network videos can be prefetched: " + uri);
+    }
+    int type = Util.inferContentType(parsed.getLastPathSegment());
+    if (type == C.TYPE_SS) {
+      throw new IllegalArgumentException("SmoothStreaming videos cannot be prefetched: " + uri);
+    }
+    Prefetch existing = prefetches.get(uri);
+    if (existing != null
+        && (existing.state.equals(STATE_QUEUED) || existing.state.equals(STATE_FETCHING))) {
+      setPriority(uri, priority);
+      return existing.toMap();
+    }
+    Prefetch prefetch =
+        new Prefetch(
+            uri, type, headers, cacheKey, lengthBytes, maxBitrate, requiresUnmetered, priority);
+    prefetch.sequence = nextSequence++;
+    prefetch.lastUsed = useCount++;
+    prefetches.put(uri, prefetch);
+    queue.add(prefetch);
+    notifyChanged(prefetch);
+    startNext();
+    return prefetch.toMap();
+  }
+
+  /**
+   * Stops the prefetch of {@code uri}, and with {@code removeData} also drops what it stored.
+   *
+   * @return whether there was such a prefetch.
+   */
+  boolean cancel(String uri, boolean removeData) {
+    Prefetch prefetch = prefetches.remove(uri);
+    if (prefetch == null) {
+      return false;
+    }
+    queue.remove(prefetch);
+    Task task = prefetch.task;
+    if (task != null) {
+      task.cancel();
+      prefetch.task = null;
+      running--;
+    }
+    if (removeData) {
+      removeData(prefetch, task);
+    }
+    if (prefetch.state.equals(STATE_QUEUED) || prefetch.state.equals(STATE_FETCHING)) {
+      prefetch.state = STATE_CANCELLED;
+      notifyChanged(prefetch);
+    } else if (removeData) {
+      prefetch.state = STATE_REMOVED;
+      notifyChanged(prefetch);
+    }
+    startNext();
+    return true;
+  }
+
+  /** Moves a queued prefetch within the queue; a running one keeps running. */
+  boolean setPriority(String uri, int priority) {
+    Prefetch prefetch = prefetches.get(uri);
+    if (prefetch == null) {
+      return false;
+    }
+    if (queue.remove(prefetch)) {
+      prefetch.priority = priority;
+      queue.add(prefetch);
+    } else {
+      prefetch.priority = priority;
+    }
+    return true;
+  }
+
+  @Nullable
+  Map<String, Object> get(String uri) {
+    Prefetch prefetch = prefetches.get(uri);
+    return prefetch == null ? null : prefetch.toMap();
+  }
+
+  List<Map<String, Object>> getAll() {
+    List<Map<String, Object>> all = new ArrayList<>(prefetches.size());
+    for (Prefetch prefetch : prefetches.values()) {
+      all.add(prefetch.toMap());
+    }
+    return all;
+  }
+
+  /**
+   * Returns whether {@code uri} has been or is being prefetched, marking it as used so that the
+   * quota evicts it last.
+   */
+  boolean use(String uri) {
+    Prefetch prefetch = prefetches.get(uri);
+    if (prefetch == null || prefetch.state.equals(STATE_FAILED)) {
+      return false;
+    }
+    prefetch.lastUsed = useCount++;
+    return true;
+  }
+
+  /** Cancels every prefetch, keeping what they stored, and stops the workers. */
+  void release() {
+    for (Prefetch prefetch : prefetches.values()) {
+      if (prefetch.task != null) {
+        prefetch.task.cancel();
+        prefetch.task = null;
+      }
+    }
+    prefetches.clear();
+    queue.clear();
+    running = 0;
+    setWaitingForNetwork(false);
+    workers.shutdownNow();
+  }
+
+  private void startNext() {
+    boolean waitingForNetwork = false;
+    List<Prefetch> deferred = new ArrayList<>();
+    while (running < maxConcurrent && !queue.isEmpty()) {
+      Prefetch prefetch = queue.poll();
+      if (!isNetworkAllowed(prefetch)) {
+        waitingForNetwork = true;
+        deferred.add(prefetch);
+        continue;
+      }
+      start(prefetch);
+    }
+    queue.addAll(deferred);
+    setWaitingForNetwork(waitingForNetwork);
+  }
+
+  private void start(Prefetch prefetch) {
+    Task task = new Task(prefetch);
+    prefetch.task = task;
+    prefetch.state = STATE_FETCHING;
+    running++;
+    workers.execute(task);
+    notifyChanged(prefetch);
+  }
+
+  private boolean isNetworkAllowed(Prefetch prefetch) {
+    ConnectivityManager connectivity = getConnectivityManager();
+    if (connectivity == null) {
+      return true;
+    }
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+      return isNetworkAllowedLegacy(connectivity, prefetch);
+    }
+    Network network = connectivity.getActiveNetwork();
+    NetworkCapabilities capabilities =
+        network == null ? null : connectivity.getNetworkCapabilities(network);
+    if (capabilities == null
+        || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+      return false;
+    }
+    return !prefetch.requiresUnmetered
+        || capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+  }
+
+  @SuppressWarnings("deprecation")
+  private static boolean isNetworkAllowedLegacy(
+      ConnectivityManager connectivity, Prefetch prefetch) {
+    NetworkInfo network = connectivity.getActiveNetworkInfo();
+    if (network == null || !network.isConnected()) {
+      return false;
+    }
+    return !prefetch.requiresUnmetered || !connectivity.isActiveNetworkMetered();
+  }
+
+  /** Listens for network changes only while a prefetch is held back by the network. */
+  private void setWaitingForNetwork(boolean waiting) {
+    ConnectivityManager connectivity = getConnectivityManager();
+    if (connectivity == null) {
+      return;
+    }
+    boolean isListening = networkCallback != null || connectivityReceiver != null;
+    if (waiting && !isListening) {
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+        networkCallback = new DefaultNetworkCallback();
+        connectivity.registerDefaultNetworkCallback(networkCallback);
+      } else {
+        connectivityReceiver = new ConnectivityReceiver();
+        registerConnectivityReceiver(connectivityReceiver);
+      }
+    } else if (!waiting && isListening) {
+      if (networkCallback != null) {
+        connectivity.unregisterNetworkCallback(networkCallback);
+        networkCallback = null;
+      } else {
+        context.unregisterReceiver(connectivityReceiver);
+        connectivityReceiver = null;
+      }
+    }
+  }
+
+  @SuppressWarnings("deprecation")
+  private void registerConnectivityReceiver(BroadcastReceiver receiver) {
+    context.registerReceiver(receiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+  }
+
+  @Nullable
+  private ConnectivityManager getConnectivityManager() {
+    return (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+  }
+
+  private void onProgress(Task task, long contentLength, long bytesFetched) {
+    Prefetch prefetch = task.prefetch;
+    if (prefetch.task != task) {
+      return;
+    }
+    prefetch.contentLength = contentLength;
+    prefetch.bytesFetched = bytesFetched;
+    notifyChanged(prefetch);
+  }
+
+  private void onFinished(Task task, @Nullable String error) {
+    Prefetch prefetch = task.prefetch;
+    if (prefetch.task != task) {
+      // Cancelled; the slot was already given back.
+      return;
+    }
+    prefetch.task = null;
+    running--;
+    if (error == null) {
+      prefetch.state = STATE_COMPLETED;
+      if (prefetch.contentLength == C.LENGTH_UNSET) {
+        prefetch.contentLength = prefetch.bytesFetched;
+      }
+    } else {
+      prefetch.state = STATE_FAILED;
+      prefetch.error = error;
+    }
+    notifyChanged(prefetch);
+    enforceQuota();
+    startNext();
+  }
+
+  /** Removes the least recently used finished prefetches until they fit the quota. */
+  private void enforceQuota() {
+    long total = 0;
+    List<Prefetch> completed = new ArrayList<>();
+    for (Prefetch prefetch : prefetches.values()) {
+      if (prefetch.state.equals(STATE_COMPLETED)) {
+        total += prefetch.bytesFetched;
+        completed.add(prefetch);
+      }
+    }
+    if (total <= quotaBytes) {
+      return;
+    }
+    Collections.sort(completed, (a, b) -> Long.compare(a.lastUsed, b.lastUsed));
+    List<Prefetch> evicted = new ArrayList<>();
+    for (Prefetch prefetch : completed) {
+      if (total <= quotaBytes) {
+        break;
+      }
+      total -= prefetch.bytesFetched;
+      evicted.add(prefetch);
+    }
+    for (Prefetch prefetch : evicted) {
+      prefetches.remove(prefetch.uri);
+      removeData(prefetch, null);
+      prefetch.state = STATE_REMOVED;
+      notifyChanged(prefetch);
+    }
+  }
+
+  /** Removes what {@code prefetch} stored once {@code cancelledTask}, if any, stopped writing. */
+  private void removeData(Prefetch prefetch, @Nullable Task cancelledTask) {
+    Downloader downloader = prefetch.newDownloader(context, null);
+    workers.execute(
+        () -> {
+          if (cancelledTask != null) {
+            try {
+              cancelledTask.awaitFinished();
+            } catch (InterruptedException e) {
+              // Shutting down; leave the data to the cache's own eviction.
+              Thread.currentThread().interrupt();
+              return;
+            }
+          }
+          downloader.remove();
+        });
+  }
+
+  private void notifyChanged(Prefetch prefetch) {
+    listener.onPrefetchChanged(prefetch.toMap());
+  }
+
+  /** Retries waiting prefetches when the default network changes, on API 24 and later. */
+  @RequiresApi(Build.VERSION_CODES.N)
+  private final class DefaultNetworkCallback extends ConnectivityManager.NetworkCallback {
+    @Override
+    public void onAvailable(Network network) {
+      handler.post(PrefetchManager.this::startNext);
+    }
+
+    @Override
+    public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+      handler.post(PrefetchManager.this::startNext);
+    }
+  }
+
+  /** Retries waiting prefetches on connectivity broadcasts, before API 24. */
+  private final class ConnectivityReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      startNext();
+    }
+  }
+
+  /** One prefetch and its progress. Mutated on the platform thread only. */
+  private static final class Prefetch {
+    final String uri;
+    final int type;
+    @Nullable final Map<String, String> headers;
+    @Nullable final String cacheKey;
+    final long lengthBytes;
+    final int maxBitrate;
+    final boolean requiresUnmetered;
+    int priority;
+    long sequence;
+    long lastUsed;
+    String state = STATE_QUEUED;
+    long bytesFetched;
+    long contentLength = C.LENGTH_UNSET;
+    @Nullable String error;
+    @Nullable Task task;
+
+    Prefetch(
+        String uri,
+        int type,
+        @Nullable Map<String, String> headers,
+        @Nullable String cacheKey,
+        long lengthBytes,
+        int maxBitrate,
+        boolean requiresUnmetered,
+        int priority) {
+      this.uri = uri;
+      this.type = type;
+      this.headers = headers;
+      this.cacheKey = cacheKey;
+      this.lengthBytes = lengthBytes;
+      this.maxBitrate = maxBitrate;
+      this.requiresUnmetered = requiresUnmetered;
+      this.priority = priority;
+    }
+
+    CacheDataSource.Factory newCacheDataSourceFactory(Context context) {
+      DataSource.Factory upstreamFactory =
+          VideoPlayerHttpStack.getInstance().buildDataSourceFactory(headers);
+      return VideoPlayerCache.getInstance(context).buildDataSourceFactory(upstreamFactory);
+    }
+
+    /** Creates the downloader of this prefetch, limited to {@code streamKeys} if given. */
+    Downloader newDownloader(Context context, @Nullable List<StreamKey> streamKeys) {
+      MediaItem mediaItem =
+          new MediaItem.Builder()
+              .setUri(uri)
+              .setCustomCacheKey(cacheKey)
+              .setStreamKeys(streamKeys)
+              .build();
+      CacheDataSource.Factory factory = newCacheDataSourceFactory(context);
+      switch (type) {
+        case C.TYPE_HLS:
+          return new HlsDownloader(mediaItem, factory);
+        case C.TYPE_DASH:
+          return new DashDownloader(mediaItem, factory);
+        default:
+          return new ProgressiveDownloader(mediaItem, factory);
+      }
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> map = new HashMap<>();
+      map.put("uri", uri);
+      map.put("state", state);
+      map.put("priority", priority);
+      map.put("bytesFetched", bytesFetched);
+      map.put("contentLength", contentLength == C.LENGTH_UNSET ? null : contentLength);
+      map.put("error", error);
+      return map;
+    }
+  }
+
+  /** Runs one prefetch on a worker thread, reporting back on the platform thread. */
+  private final class Task implements Runnable {
+    final Prefetch prefetch;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean isCancelled;
+    // The worker running this task, guarded by this.
+    @Nullable private Thread thread;
+    @Nullable private volatile Downloader downloader;
+    @Nullable private volatile CacheWriter writer;
+    // Only touched on the worker thread.
+    private long lastProgressAtMs;
+    private long contentLength = C.LENGTH_UNSET;
+    private long bytesFetched;
+
+    Task(Prefetch prefetch) {
+      this.prefetch = prefetch;
+    }
+
+    void cancel() {
+      isCancelled = true;
+      Downloader downloader = this.downloader;
+      if (downloader != null) {
+        downloader.cancel();
+      }
+      CacheWriter writer = this.writer;
+      if (writer != null) {
+        writer.cancel();
+      }
+      synchronized (this) {
+        if (thread != null) {
+          thread.interrupt();
+        }
+      }
+    }
+
+    /** Blocks until {@link #run} has returned, so nothing writes on behalf of this task anymore. */
+    void awaitFinished() throws InterruptedException {
+      finished.await();
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        thread = Thread.currentThread();
+      }
+      try {
+        fetch();
+      } finally {
+        synchronized (this) {
+          thread = null;
+          // Do not pass an interrupt from cancel() on to the next task of this worker.
+          Thread.interrupted();
+        }
+        finished.countDown();
+      }
+    }
+
+    private void fetch() {
+      if (isCancelled) {
+        // Cancelled before a worker picked it up; the slot was already given back.
+        return;
+      }
+      String error = null;
+      try {
+        if (prefetch.type == C.TYPE_OTHER && prefetch.lengthBytes != C.LENGTH_UNSET) {
+          fetchStart();
+        } else {
+          fetchWhole();
+        }
+      } catch (InterruptedException | InterruptedIOException e) {
+        Thread.currentThread().interrupt();
+        error = "Interrupted";
+      } catch (IOException | RuntimeException e) {
+        error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+      }
+      String finalError = error;
+      handler.post(() -> onFinished(this, finalError));
+    }
+
+    /** Fetches the first {@code lengthBytes} of a progressive video. */
+    private void fetchStart() throws IOException {
+      DataSpec dataSpec =
+          new DataSpec.Builder()
+              .setUri(prefetch.uri)
+              .setLength(prefetch.lengthBytes)
+              .setKey(prefetch.cacheKey)
+              .build();
+      CacheWriter writer =
+          new CacheWriter(
+              prefetch.newCacheDataSourceFactory(context).createDataSource(),
+              dataSpec,
+              /* allowShortContent= */ true,
+              /* temporaryBuffer= */ null,
+              (requestLength, bytesCached, newBytesCached) ->
+                  reportProgress(requestLength, bytesCached));
+      this.writer = writer;
+      if (isCancelled) {
+        return;
+      }
+      writer.cache();
+      flushProgress();
+    }
+
+    private void fetchWhole() throws IOException, InterruptedException {
+      List<StreamKey> streamKeys = null;
+      if (prefetch.maxBitrate > 0) {
+        if (prefetch.type == C.TYPE_HLS) {
+          streamKeys = selectHlsStreamKeys();
+        } else if (prefetch.type == C.TYPE_DASH) {
+          streamKeys = selectDashStreamKeys();
+        }
+      }
+      Downloader downloader = prefetch.newDownloader(context, streamKeys);
+      this.downloader = downloader;
+      if (isCancelled) {
+        return;
+      }
+      downloader.download(
+          (contentLength, bytesDownloaded, percentDownloaded) ->
+              reportProgress(contentLength, bytesDownloaded));
+      flushProgress();
+    }
+
+    /** Picks the best variant within the bitrate, along with every audio rendition. */
+    @Nullable
+    private List<StreamKey> selectHlsStreamKeys() throws IOException {
+      HlsPlaylist playlist =
+          ParsingLoadable.load(
+              prefetch.newCacheDataSourceFactory(context).createDataSource(),
+              new HlsPlaylistParser(),
+              Uri.parse(prefetch.uri),
+              C.DATA_TYPE_MANIFEST);
+      if (!(playlist instanceof HlsMasterPlaylist)) {
+        // A media playlist has a single rendition.
+        return null;
+      }
+      HlsMasterPlaylist master = (HlsMasterPlaylist) playlist;
+      List<Integer> bitrates = new ArrayList<>(master.variants.size());
+      for (HlsMasterPlaylist.Variant variant : master.variants) {
+        bitrates.add(variant.format.bitrate);
+      }
+      int variantIndex = selectBitrate(bitrates, prefetch.maxBitrate);
+      if (variantIndex == C.INDEX_UNSET) {
+        return null;
+      }
+      List<StreamKey> streamKeys = new ArrayList<>();
+      streamKeys.add(new StreamKey(HlsMasterPlaylist.GROUP_INDEX_VARIANT, variantIndex));
+      for (int i = 0; i < master.audios.size(); i++) {
+        streamKeys.add(new StreamKey(HlsMasterPlaylist.GROUP_INDEX_AUDIO, i));
+      }
+      return streamKeys;
+    }
+
+    /** Picks the best representation within the bitrate of every adaptation set. */
+    @Nullable
+    private List<StreamKey> selectDashStreamKeys() throws IOException {
+      DashManifest manifest =
+          ParsingLoadable.load(
+              prefetch.newCacheDataSourceFactory(context).createDataSource(),
+              new DashManifestParser(),
+              Uri.parse(prefetch.uri),
+              C.DATA_TYPE_MANIFEST);
+      List<StreamKey> streamKeys = new ArrayList<>();
+      for (int periodIndex = 0; periodIndex < manifest.getPeriodCount(); periodIndex++) {
+        Period period = manifest.getPeriod(periodIndex);
+        for (int setIndex = 0; setIndex < period.adaptationSets.size(); setIndex++) {
+          AdaptationSet adaptationSet = period.adaptationSets.get(setIndex);
+          List<Integer> bitrates = new ArrayList<>(adaptationSet.representations.size());
+          for (int i = 0; i < adaptationSet.representations.size(); i++) {
+            bitrates.add(adaptationSet.representations.get(i).format.bitrate);
+          }
+          int trackIndex = selectBitrate(bitrates, prefetch.maxBitrate);
+          if (trackIndex != C.INDEX_UNSET) {
+            streamKeys.add(new StreamKey(periodIndex, setIndex, trackIndex));
+          }
+        }
+      }
+      return streamKeys.isEmpty() ? null : streamKeys;
+    }
+
+    private void reportProgress(long contentLength, long bytesFetched) {
+      this.contentLength = contentLength;
+      this.bytesFetched = bytesFetched;
+      long nowMs = SystemClock.elapsedRealtime();
+      if (nowMs - lastProgressAtMs >= PROGRESS_INTERVAL_MS) {
+        lastProgressAtMs = nowMs;
+        flushProgress();
+      }
+    }
+
+    private void flushProgress() {
+      long contentLength = this.contentLength;
+      long bytesFetched = this.bytesFetched;
+      handler.post(() -> onProgress(this, contentLength, bytesFetched));
+    }
+  }
+
+  /**
+   * Returns the index of the highest bitrate not above {@code maxBitrate}, or of the lowest one if
+   * all are above it. Unknown bitrates are only picked if no bitrate is known.
+   */
+  static int selectBitrate(List<Integer> bitrates, int maxBitrate) {
+    int best = C.INDEX_UNSET;
+    int lowest = C.INDEX_UNSET;
+    for (int i = 0; i < bitrates.size(); i++) {
+      int bitrate = bitrates.get(i);
+      if (bitrate == Format.NO_VALUE) {
+        continue;
+      }
+      if (lowest == C.INDEX_UNSET || bitrate < bitrates.get(lowest)) {
+        lowest = i;
+      }
+      if (bitrate <= maxBitrate && (best == C.INDEX_UNSET || bitrate > bitrates.get(best))) {
+        best = i;
+      }
+    }
+    if (best != C.INDEX_UNSET) {
+      return best;
+    }
+    if (lowest != C.INDEX_UNSET) {
+      return lowest;
+    }
+    return bitrates.isEmpty() ? C.INDEX_UNSET : 0;
+  }
+}
@@ -4,8 +4,12 @@
 
 package io.flutter.plugins.videoplayer;
 
+import android.os.Handler;
+import android.os.Looper;
 import io.flutter.plugin.common.EventChannel;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * And implementation of {@link EventChannel.EventSink} which can wrap an underlying sink.
@@ -13,60 +17,162 @@ import java.util.ArrayList;
  * <p>It delivers messages immediately when downstream is available, but it queues messages before
  * the delegate event sink is set with setDelegate.
  *
- * <p>This class is not thread-safe. All calls must be done on the same thread or synchronized
- * externally.
+ * <p>The queue is bounded. Progress events ({@code bufferingUpdate}, {@code position}, {@code
+ * stats}) are coalesced so that only the latest one of each type waits in the queue, and when the
+ * queue is full the oldest event other than {@code initialized}, an error or end of stream is
+ * dropped. Events encoded by {@link CompactEventEncoder} are treated like their map counterparts.
+ *
+ * <p>Events may be sent from any thread. The delegate is always called on the main thread.
  */
 final class QueuingEventSink implements EventChannel.EventSink {
+  static final int DEFAULT_CAPACITY = 64;
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable flush = this::maybeFlush;
+  private final int capacity;
   private EventChannel.EventSink delegate;
-  private ArrayList<Object> eventQueue = new ArrayList<>();
+  private final ArrayDeque<Object> eventQueue = new ArrayDeque<>();
   private boolean done = false;
+  private long droppedCount;
+  private long coalescedCount;
+
+  QueuingEventSink() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  QueuingEventSink(int capacity) {
+    this.capacity = capacity;
+  }
 
   public void setDelegate(EventChannel.EventSink delegate) {
-    this.delegate = delegate;
-    maybeFlush();
+    synchronized (this) {
+      this.delegate = delegate;
+    }
+    deliver();
   }
 
   @Override
   public void endOfStream() {
-    enqueue(new EndOfStreamEvent());
-    maybeFlush();
-    done = true;
+    synchronized (this) {
+      enqueue(new EndOfStreamEvent());
+      done = true;
+    }
+    deliver();
   }
 
   @Override
   public void error(String code, String message, Object details) {
-    enqueue(new ErrorEvent(code, message, details));
-    maybeFlush();
+    synchronized (this) {
+      enqueue(new ErrorEvent(code, message, details));
+    }
+    deliver();
   }
 
   @Override
   public void success(Object event) {
-    enqueue(event);
-    maybeFlush();
+    synchronized (this) {
+      enqueue(event);
+    }
+    deliver();
+  }
+
+  synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+
+  synchronized long getCoalescedCount() {
+    return coalescedCount;
   }
 
   private void enqueue(Object event) {
     if (done) {
       return;
     }
+    String coalescingKey = coalescingKey(event);
+    if (coalescingKey != null) {
+      for (Iterator<Object> it = eventQueue.iterator(); it.hasNext(); ) {
+        if (coalescingKey.equals(coalescingKey(it.next()))) {
+          it.remove();
+          coalescedCount++;
+          break;
+        }
+      }
+    }
+    if (eventQueue.size() >= capacity && !dropOldestDroppable()) {
+      if (!isCritical(event)) {
+        droppedCount++;
+        return;
+      }
+    }
     eventQueue.add(event);
   }
 
-  private void maybeFlush() {
-    if (delegate == null) {
-      return;
+  private boolean dropOldestDroppable() {
+    for (Iterator<Object> it = eventQueue.iterator(); it.hasNext(); ) {
+      if (!isCritical(it.next())) {
+        it.remove();
+        droppedCount++;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void deliver() {
+    if (Looper.myLooper() == Looper.getMainLooper()) {
+      maybeFlush();
+    } else {
+      mainHandler.post(flush);
     }
-    for (Object event : eventQueue) {
+  }
+
+  // Takes one event at a time rather than copying the queue, so delivering allocates nothing.
+  private void maybeFlush() {
+    while (true) {
+      EventChannel.EventSink sink;
+      Object event;
+      synchronized (this) {
+        sink = delegate;
+        if (sink == null) {
+          return;
+        }
+        event = eventQueue.poll();
+      }
+      if (event == null) {
+        return;
+      }
       if (event instanceof EndOfStreamEvent) {
-        delegate.endOfStream();
+        sink.endOfStream();
       } else if (event instanceof ErrorEvent) {
         ErrorEvent errorEvent = (ErrorEvent) event;
-        delegate.error(errorEvent.code, errorEvent.message, errorEvent.details);
+        sink.error(errorEvent.code, errorEvent.message, errorEvent.details);
       } else {
-        delegate.success(event);
+        sink.success(event);
       }
     }
-    eventQueue.clear();
+  }
+
+  /** Returns the type shared by events that supersede each other, or null if none. */
+  private static String coalescingKey(Object event) {
+    String type = eventType(event);
+    if ("bufferingUpdate".equals(type) || "position".equals(type) || "stats".equals(type)) {
+      return type;
+    }
+    return null;
+  }
+
+  private static boolean isCritical(Object event) {
+    return event instanceof EndOfStreamEvent
+        || event instanceof ErrorEvent
+        || "initialized".equals(eventType(event));
+  }
+
+  private static String eventType(Object event) {
+    if (event instanceof Map) {
+      Object type = ((Map<?, ?>) event).get("event");
+      return type instanceof String ? (String) type : null;
+    }
+    return CompactEventEncoder.typeName(event);
   }
 
   private static class EndOfStreamEvent {}
@@ -0,0 +1,81 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+/**
+ * A per-player view of the process-wide {@link DefaultBandwidthMeter}.
+ *
+ * <p>Every player measures its transfers into the same estimator, so a new player starts from what
+ * earlier players observed instead of a cold default. Until the shared estimator has taken its
+ * first sample since {@link #resetSample()}, a player may substitute its own preferred initial
+ * bitrate. After that, every player starts from the measured estimate.
+ */
+final class SharedBandwidthMeter implements BandwidthMeter {
+  private static DefaultBandwidthMeter sharedMeter;
+  private static volatile boolean hasSample;
+
+  private final DefaultBandwidthMeter delegate;
+  private volatile long initialBitrateEstimate;
+
+  SharedBandwidthMeter(Context context) {
+    delegate = getSharedMeter(context);
+  }
+
+  private static synchronized DefaultBandwidthMeter getSharedMeter(Context context) {
+    if (sharedMeter == null) {
+      sharedMeter = DefaultBandwidthMeter.getSingletonInstance(context);
+      sharedMeter.addEventListener(
+          new Handler(Looper.getMainLooper()),
+          (elapsedMs, bytesTransferred, bitrateEstimate) -> hasSample = true);
+    }
+    return sharedMeter;
+  }
+
+  /**
+   * Makes players report their initial bitrate again until the next sample. Called when the shared
+   * resources are released, so a new engine does not inherit the previous one's state.
+   */
+  static void resetSample() {
+    hasSample = false;
+  }
+
+  /** Sets the estimate reported before any sample was taken, or clears it when not positive. */
+  void setInitialBitrateEstimate(long bitrate) {
+    initialBitrateEstimate = bitrate;
+  }
+
+  @Override
+  public long getBitrateEstimate() {
+    long initial = initialBitrateEstimate;
+    if (initial > 0 && !hasSample) {
+      return initial;
+    }
+    return delegate.getBitrateEstimate();
+  }
+
+  @Nullable
+  @Override
+  public TransferListener getTransferListener() {
+    return delegate.getTransferListener();
+  }
+
+  @Override
+  public void addEventListener(Handler eventHandler, EventListener eventListener) {
+    delegate.addEventListener(eventHandler, eventListener);
+  }
+
+  @Override
+  public void removeEventListener(EventListener eventListener) {
+    delegate.removeEventListener(eventListener);
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import android.support.v4.media.session.MediaSessionCompat;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.ext.mediasession.MediaSessionConnector;
+import java.util.ArrayList;
+
+/**
+ * The one media session of the plugin, shared by the players that opted in.
+ *
+ * <p>The session controls the member that most recently started playing. It is created when the
+ * first player registers and released once the last one unregisters, so apps that never opt in
+ * pay nothing for it.
+ *
+ * <p>This class is not thread-safe. All calls must be done on the platform thread.
+ */
+final class SharedMediaSession {
+  private final Context context;
+  // Ordered from least to most recently focused.
+  private final ArrayList<Player> members = new ArrayList<>();
+  @Nullable private MediaSessionCompat session;
+  @Nullable private MediaSessionConnector connector;
+  @Nullable private Player current;
+
+  SharedMediaSession(Context context) {
+    this.context = context;
+  }
+
+  /** Adds {@code player}; the session only moves to it if it has no player yet. */
+  void register(Player player) {
+    if (members.contains(player)) {
+      return;
+    }
+    members.add(0, player);
+    if (session == null) {
+      session = new MediaSessionCompat(context, "VideoPlayer");
+      connector = new MediaSessionConnector(session);
+      session.setActive(true);
+    }
+    if (current == null) {
+      setCurrent(player);
+    }
+  }
+
+  /** Points the session at {@code player}, if it is a member. */
+  void focus(Player player) {
+    if (!members.remove(player)) {
+      return;
+    }
+    members.add(player);
+    if (current != player) {
+      setCurrent(player);
+    }
+  }
+
+  /** Removes {@code player}, handing the session to the most recently focused remaining member. */
+  void unregister(Player player) {
+    if (!members.remove(player)) {
+      return;
+    }
+    if (members.isEmpty()) {
+      release();
+    } else if (current == player) {
+      setCurrent(members.get(members.size() - 1));
+    }
+  }
+
+  private void setCurrent(@Nullable Player player) {
+    current = player;
+    connector.setPlayer(player);
+  }
+
+  void release() {
+    members.clear();
+    if (session != null) {
+      setCurrent(null);
+      session.setActive(false);
+      session.release();
+      session = null;
+      connector = null;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The resources every plugin instance in the process shares, whichever engine it is attached to.
+ *
+ * <p>Apps with several engines attach one plugin instance per engine. Players stay with the engine
+ * that created them, but parked players, the setup thread, the media session, the frame cache, the
+ * decoder budget, memory pressure handling and prefetches exist once per process. The HTTP stack,
+ * the disk cache and the bandwidth estimate are process-wide singletons of their own.
+ *
+ * <p>The resources are created when the first instance attaches and released when the last one
+ * detaches. Process-wide signals, such as trim-memory callbacks and prefetch progress, are handled
+ * once here and then passed on to every attached instance.
+ *
+ * <p>This class is not thread-safe. All calls must be done on the platform thread.
+ */
+final class SharedResources implements MemoryPressure.Listener, PrefetchManager.Listener {
+  /** What an attached plugin instance is told about process-wide signals. */
+  interface Client {
+    /** Called after the shared resources responded to the signal. */
+    void onMemoryPressure(int tier, int level);
+
+    void onMemoryPressureRelieved();
+
+    void onPrefetchChanged(Map<String, Object> prefetch);
+  }
+
+  private static SharedResources instance;
+
+  final ExoPlayerPool playerPool;
+  final ExecutorService setupExecutor;
+  final SharedMediaSession mediaSession;
+  final ThumbnailExtractor thumbnails;
+  final DecoderBudget decoderBudget = new DecoderBudget();
+  final MemoryPressure memoryPressure = new MemoryPressure(this);
+  final PrefetchManager prefetches;
+
+  private final Context context;
+  private final List<Client> clients = new ArrayList<>();
+
+  /** Returns the shared resources, creating them for the first client. */
+  static SharedResources attach(Context context, Client client) {
+    if (instance == null) {
+      instance = new SharedResources(context.getApplicationContext());
+    }
+    instance.clients.add(client);
+    return instance;
+  }
+
+  /** Detaches {@code client}, releasing the shared resources if it was the last one. */
+  static void detach(Client client) {
+    if (instance == null || !instance.clients.remove(client)) {
+      return;
+    }
+    if (instance.clients.isEmpty()) {
+      instance.release();
+      instance = null;
+    }
+  }
+
+  private SharedResources(Context context) {
+    this.context = context;
+    playerPool = new ExoPlayerPool(context);
+    setupExecutor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "VideoPlayerSetup"));
+    mediaSession = new SharedMediaSession(context);
+    thumbnails = new ThumbnailExtractor(context);
+    prefetches = new PrefetchManager(context, this);
+    context.registerComponentCallbacks(memoryPressure);
+  }
+
+  @Override
+  public void onMemoryPressure(int tier, int level) {
+    playerPool.clear();
+    thumbnails.trimCache();
+    for (Client client : new ArrayList<>(clients)) {
+      client.onMemoryPressure(tier, level);
+    }
+  }
+
+  @Override
+  public void onMemoryPressureRelieved() {
+    for (Client client : new ArrayList<>(clients)) {
+      client.onMemoryPressureRelieved();
+    }
+  }
+
+  @Override
+  public void onPrefetchChanged(Map<String, Object> prefetch) {
+    for (Client client : new ArrayList<>(clients)) {
+      client.onPrefetchChanged(prefetch);
+    }
+  }
+
+  private void release() {
+    context.unregisterComponentCallbacks(memoryPressure);
+    memoryPressure.release();
+    prefetches.release();
+    playerPool.clear();
+    setupExecutor.shutdown();
+    mediaSession.release();
+    thumbnails.release();
+    decoderBudget.clear();
+    SharedBandwidthMeter.resetSample();
+    VideoPlayerHttpStack.getInstance().releaseClient();
+  }
+}
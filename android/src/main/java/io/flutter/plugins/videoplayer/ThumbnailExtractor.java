@@ -0,0 +1,360 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import androidx.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes still frames of a video without a player, for scrubbing previews and thumbnail strips.
+ *
+ * <p>Frames are decoded with {@link MediaMetadataRetriever} on a small worker pool, one retriever
+ * per request so that a strip only opens its source once, and are returned as JPEG bytes. Encoded
+ * frames are kept in an LRU cache bounded by their total size. A frame that is already being
+ * decoded is not decoded a second time; later requests for it wait for the first decode.
+ *
+ * <p>Requests may name the player they were made for, so that they can be cancelled when that
+ * player is disposed.
+ *
+ * <p>All methods must be called on the platform thread, and callbacks are run there.
+ */
+final class ThumbnailExtractor {
+  static final int DEFAULT_MAX_CACHE_BYTES = 8 * 1024 * 1024;
+  static final int WORKER_COUNT = 2;
+  private static final int JPEG_QUALITY = 80;
+
+  interface FramesCallback {
+    /** Called with one entry per requested time, null for frames that could not be decoded. */
+    void onFrames(List<byte[]> frames);
+
+    void onCancelled();
+  }
+
+  private final Context context;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final ThreadPoolExecutor workers =
+      new ThreadPoolExecutor(
+          WORKER_COUNT,
+          WORKER_COUNT,
+          30,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          runnable -> new Thread(runnable, "VideoThumbnails"));
+  private final Map<String, PendingFrame> pendingFrames = new HashMap<>();
+  private LruCache<String, byte[]> cache = newCache(DEFAULT_MAX_CACHE_BYTES);
+
+  ThumbnailExtractor(Context context) {
+    this.context = context;
+    workers.allowCoreThreadTimeOut(true);
+  }
+
+  /** Replaces the cache with an empty one of {@code maxCacheBytes}. */
+  void configure(int maxCacheBytes) {
+    cache = newCache(Math.max(1, maxCacheBytes));
+  }
+
+  /**
+   * Decodes the frames of {@code dataSource} at {@code timesMs}, downscaled to fit within {@code
+   * width} x {@code height}. A width or height of zero leaves that dimension unconstrained.
+   *
+   * @param exact whether to decode the exact frames rather than the closest key frames.
+   * @param owner the player the request is made for, or null.
+   */
+  void getFrames(
+      String dataSource,
+      @Nullable Map<String, String> headers,
+      List<Long> timesMs,
+      int width,
+      int height,
+      boolean exact,
+      @Nullable Object owner,
+      FramesCallback callback) {
+    Request request = new Request(timesMs.size(), owner, callback);
+    List<PendingFrame> framesToDecode = new ArrayList<>();
+    for (int i = 0; i < timesMs.size(); i++) {
+      long timeMs = timesMs.get(i);
+      String key = dataSource + '@' + timeMs + '/' + width + 'x' + height + (exact ? "/exact" : "");
+      byte[] cached = cache.get(key);
+      if (cached != null) {
+        request.frames[i] = cached;
+        request.remaining--;
+        continue;
+      }
+      PendingFrame pending = pendingFrames.get(key);
+      if (pending == null) {
+        pending = new PendingFrame(key, timeMs);
+        pendingFrames.put(key, pending);
+        framesToDecode.add(pending);
+      }
+      pending.waiters.add(new Waiter(request, i));
+    }
+    if (!framesToDecode.isEmpty()) {
+      Job job = new Job(dataSource, headers, framesToDecode, width, height, exact);
+      workers.execute(job);
+    }
+    request.finishIfDone();
+  }
+
+  /** Cancels every request made for {@code owner}. */
+  void cancel(Object owner) {
+    for (Iterator<PendingFrame> frames = pendingFrames.values().iterator(); frames.hasNext(); ) {
+      PendingFrame pending = frames.next();
+      for (Iterator<Waiter> waiters = pending.waiters.iterator(); waiters.hasNext(); ) {
+        Request request = waiters.next().request;
+        if (request.owner == owner) {
+          waiters.remove();
+          request.cancel();
+        }
+      }
+      if (pending.waiters.isEmpty()) {
+        pending.isCancelled = true;
+        frames.remove();
+      }
+    }
+  }
+
+  /** Drops the cached frames. */
+  void trimCache() {
+    cache.evictAll();
+  }
+
+  /** Cancels everything and stops the workers. */
+  void release() {
+    for (PendingFrame pending : pendingFrames.values()) {
+      pending.isCancelled = true;
+      for (Waiter waiter : pending.waiters) {
+        waiter.request.cancel();
+      }
+    }
+    pendingFrames.clear();
+    workers.shutdownNow();
+    cache.evictAll();
+  }
+
+  private static LruCache<String, byte[]> newCache(int maxBytes) {
+    return new LruCache<String, byte[]>(maxBytes) {
+      @Override
+      protected int sizeOf(String key, byte[] value) {
+        return value.length;
+      }
+    };
+  }
+
+  private void deliver(PendingFrame pending, @Nullable byte[] frame) {
+    if (pendingFrames.get(pending.key) != pending) {
+      // Cancelled while it was being decoded.
+      return;
+    }
+    pendingFrames.remove(pending.key);
+    if (frame != null) {
+      cache.put(pending.key, frame);
+    }
+    for (Waiter waiter : pending.waiters) {
+      waiter.request.setFrame(waiter.index, frame);
+    }
+  }
+
+  /** One caller's request, answered once all of its frames are known. */
+  private static final class Request {
+    final byte[][] frames;
+    @Nullable final Object owner;
+    final FramesCallback callback;
+    int remaining;
+    boolean isFinished;
+
+    Request(int frameCount, @Nullable Object owner, FramesCallback callback) {
+      this.frames = new byte[frameCount][];
+      this.owner = owner;
+      this.callback = callback;
+      this.remaining = frameCount;
+    }
+
+    void setFrame(int index, @Nullable byte[] frame) {
+      frames[index] = frame;
+      remaining--;
+      finishIfDone();
+    }
+
+    void finishIfDone() {
+      if (!isFinished && remaining == 0) {
+        isFinished = true;
+        callback.onFrames(Arrays.asList(frames));
+      }
+    }
+
+    void cancel() {
+      if (!isFinished) {
+        isFinished = true;
+        callback.onCancelled();
+      }
+    }
+  }
+
+  private static final class Waiter {
+    final Request request;
+    final int index;
+
+    Waiter(Request request, int index) {
+      this.request = request;
+      this.index = index;
+    }
+  }
+
+  /** A frame being decoded, with the requests waiting for it. */
+  private static final class PendingFrame {
+    final String key;
+    final long timeMs;
+    final List<Waiter> waiters = new ArrayList<>();
+    volatile boolean isCancelled;
+
+    PendingFrame(String key, long timeMs) {
+      this.key = key;
+      this.timeMs = timeMs;
+    }
+  }
+
+  /** Decodes the frames of one request that were neither cached nor already being decoded. */
+  private final class Job implements Runnable {
+    private final String dataSource;
+    @Nullable private final Map<String, String> headers;
+    private final List<PendingFrame> frames;
+    private final int width;
+    private final int height;
+    private final int option;
+
+    Job(
+        String dataSource,
+        @Nullable Map<String, String> headers,
+        List<PendingFrame> frames,
+        int width,
+        int height,
+        boolean exact) {
+      this.dataSource = dataSource;
+      this.headers = headers;
+      this.frames = frames;
+      this.width = width;
+      this.height = height;
+      this.option =
+          exact ? MediaMetadataRetriever.OPTION_CLOSEST : MediaMetadataRetriever.OPTION_CLOSEST_SYNC;
+    }
+
+    @Override
+    public void run() {
+      if (allCancelled()) {
+        return;
+      }
+      MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+      boolean isOpen = open(retriever);
+      for (PendingFrame pending : frames) {
+        if (pending.isCancelled || Thread.currentThread().isInterrupted()) {
+          continue;
+        }
+        byte[] frame = isOpen ? decode(retriever, pending.timeMs) : null;
+        handler.post(() -> deliver(pending, frame));
+      }
+      try {
+        retriever.release();
+      } catch (Exception e) {
+        // Nothing left to do with it either way.
+      }
+    }
+
+    private boolean allCancelled() {
+      for (PendingFrame pending : frames) {
+        if (!pending.isCancelled) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean open(MediaMetadataRetriever retriever) {
+      Uri uri = Uri.parse(dataSource);
+      try {
+        if ("asset".equals(uri.getScheme())) {
+          AssetFileDescriptor fd = context.getAssets().openFd(uri.getPath().substring(1));
+          try {
+            retriever.setDataSource(fd.getFileDescriptor(), fd.getStartOffset(), fd.getLength());
+          } finally {
+            fd.close();
+          }
+        } else if ("file".equals(uri.getScheme())) {
+          retriever.setDataSource(uri.getPath());
+        } else {
+          retriever.setDataSource(
+              dataSource, headers == null ? new HashMap<String, String>() : headers);
+        }
+        return true;
+      } catch (IOException | RuntimeException e) {
+        return false;
+      }
+    }
+
+    @Nullable
+    private byte[] decode(MediaMetadataRetriever retriever, long timeMs) {
+      long timeUs = timeMs * 1000;
+      Bitmap bitmap;
+      try {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1 && width > 0 && height > 0) {
+          bitmap = retriever.getScaledFrameAtTime(timeUs, option, width, height);
+        } else {
+          bitmap = downscale(retriever.getFrameAtTime(timeUs, option));
+        }
+      } catch (RuntimeException e) {
+        return null;
+      }
+      if (bitmap == null) {
+        return null;
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, bytes);
+      bitmap.recycle();
+      return bytes.toByteArray();
+    }
+
+    @Nullable
+    private Bitmap downscale(@Nullable Bitmap frame) {
+      if (frame == null || (width <= 0 && height <= 0)) {
+        return frame;
+      }
+      float scale =
+          Math.min(
+              width > 0 ? (float) width / frame.getWidth() : Float.MAX_VALUE,
+              height > 0 ? (float) height / frame.getHeight() : Float.MAX_VALUE);
+      if (scale >= 1) {
+        return frame;
+      }
+      Bitmap scaled =
+          Bitmap.createScaledBitmap(
+              frame,
+              Math.max(1, Math.round(frame.getWidth() * scale)),
+              Math.max(1, Math.round(frame.getHeight() * scale)),
+              true);
+      if (scaled != frame) {
+        frame.recycle();
+      }
+      return scaled;
+    }
+  }
+}
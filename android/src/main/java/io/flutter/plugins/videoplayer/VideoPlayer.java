@@ -0,0 +1,647 @@
+package io.flutter.plugins.videoplayer;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Surface;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.MediaItem;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SeekParameters;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.audio.AudioAttributes;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.view.TextureRegistry;
+
+import static com.google.android.exoplayer2.Player.REPEAT_MODE_ALL;
+import static com.google.android.exoplayer2.Player.REPEAT_MODE_OFF;
+
+final class VideoPlayer {
+
+    private final ExoPlayerPool playerPool;
+    private final MediaSourceBuilder mediaSourceBuilder;
+    private final ExoPlayerPool.PooledPlayer pooledPlayer;
+    private final SimpleExoPlayer exoPlayer;
+    private final TextureRegistry.SurfaceTextureEntry textureEntry;
+    private final QueuingEventSink eventSink = new QueuingEventSink();
+    private final EventChannel eventChannel;
+    private Surface surface;
+    private Player.EventListener playerListener;
+    @Nullable private SharedMediaSession mediaSession;
+    private boolean isInitialized = false;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable positionTick = this::onPositionTick;
+    private long positionUpdateIntervalMs;
+    private boolean isListening = false;
+    private boolean isTicking = false;
+
+    // A seek is in flight from the seekTo call until the player is ready or ended again.
+    private boolean isSeeking = false;
+    private long pendingSeekMs = C.TIME_UNSET;
+    private SeekParameters pendingSeekParameters = SeekParameters.EXACT;
+
+    // Non-null once the Dart side asked for the compact event format.
+    @Nullable private CompactEventEncoder compactEncoder;
+
+    private boolean isVideoEnabled = true;
+    private int maxVideoWidth = Integer.MAX_VALUE;
+    private int maxVideoHeight = Integer.MAX_VALUE;
+    private boolean isVideoSizeCapped = false;
+
+    private boolean isVisible = true;
+    private boolean isHibernated = false;
+    private int hibernatedWindowIndex;
+    private long hibernatedPositionMs;
+    private boolean hibernatedPlayWhenReady;
+
+    private final PlaybackStatsTracker statsTracker = new PlaybackStatsTracker();
+    private final Runnable statsTick = this::onStatsTick;
+    private long statsUpdateIntervalMs = 0;
+
+    VideoPlayer(
+            ExoPlayerPool playerPool,
+            ExoPlayerPool.PooledPlayer pooledPlayer,
+            MediaSourceBuilder mediaSourceBuilder,
+            List<MediaSource> mediaSources,
+            EventChannel eventChannel,
+            TextureRegistry.SurfaceTextureEntry textureEntry,
+            long positionUpdateIntervalMs) {
+        this.positionUpdateIntervalMs = positionUpdateIntervalMs;
+        this.eventChannel = eventChannel;
+        this.textureEntry = textureEntry;
+        this.mediaSourceBuilder = mediaSourceBuilder;
+
+        this.playerPool = playerPool;
+        this.pooledPlayer = pooledPlayer;
+        exoPlayer = pooledPlayer.player;
+        exoPlayer.addAnalyticsListener(statsTracker);
+
+        exoPlayer.setMediaSources(mediaSources);
+        exoPlayer.prepare();
+
+        setupVideoPlayer(eventChannel, textureEntry);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void setAudioAttributes(SimpleExoPlayer exoPlayer) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            exoPlayer.setAudioAttributes(
+                    new AudioAttributes.Builder()
+                            .setUsage(C.USAGE_MEDIA)
+                            .setContentType(C.CONTENT_TYPE_MOVIE)
+                            .build(), true);
+        } else exoPlayer.setAudioStreamType(C.STREAM_TYPE_MUSIC);
+    }
+
+    private void setupVideoPlayer(
+            EventChannel eventChannel,
+            TextureRegistry.SurfaceTextureEntry textureEntry) {
+
+        eventChannel.setStreamHandler(
+                new EventChannel.StreamHandler() {
+                    @Override
+                    public void onListen(Object o, EventChannel.EventSink sink) {
+                        eventSink.setDelegate(sink);
+                        isListening = true;
+                        updatePositionTicks();
+                        updateStatsTicks();
+                    }
+
+                    @Override
+                    public void onCancel(Object o) {
+                        eventSink.setDelegate(null);
+                        isListening = false;
+                        updatePositionTicks();
+                        updateStatsTicks();
+                    }
+                });
+
+        surface = new Surface(textureEntry.surfaceTexture());
+        exoPlayer.setVideoSurface(surface);
+        setAudioAttributes(exoPlayer);
+
+        playerListener =
+                new Player.EventListener() {
+                    @Override
+                    public void onPlaybackStateChanged(final int playbackState) {
+                        Player.EventListener.super.onPlaybackStateChanged(playbackState);
+                        if (playbackState == Player.STATE_BUFFERING && compactEncoder != null) {
+                            eventSink.success(compactEncoder.encode(CompactEventEncoder.BUFFERING_START));
+                        } else if (playbackState == Player.STATE_BUFFERING) {
+                            Map<String, Object> event = new HashMap<>();
+                            event.put("event", "bufferingUpdate");
+                            List<Integer> range = Arrays.asList(0, exoPlayer.getBufferedPercentage());
+                            // iOS supports a list of buffered ranges, so here is a list with a single range.
+                            event.put("values", Collections.singletonList(range));
+                            event.put("event", "bufferingStart");
+                            eventSink.success(event);
+                        } else if (playbackState == Player.STATE_IDLE) {
+                            isSeeking = false;
+                            pendingSeekMs = C.TIME_UNSET;
+                        }
+                        maybeSettleSeek();
+                        if (playbackState == Player.STATE_READY) {
+                            if (isInitialized && compactEncoder != null) {
+                                eventSink.success(compactEncoder.encode(CompactEventEncoder.BUFFERING_END));
+                            } else if (isInitialized) {
+                                Map<String, Object> event = new HashMap<>();
+                                event.put("event", "bufferingEnd");
+                                eventSink.success(event);
+                            } else {
+                                isInitialized = true;
+                                sendInitialized();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onPositionDiscontinuity(int reason) {
+                        // A seek within the buffer may never leave READY or ENDED, so do not rely on
+                        // a state change alone to settle it.
+                        if (reason == Player.DISCONTINUITY_REASON_SEEK) {
+                            maybeSettleSeek();
+                        }
+                    }
+
+                    @Override
+                    public void onIsPlayingChanged(boolean isPlaying) {
+                        if (compactEncoder != null) {
+                            eventSink.success(
+                                    compactEncoder.encode(
+                                            isPlaying ? CompactEventEncoder.PLAYED : CompactEventEncoder.PAUSED));
+                        } else if (isPlaying) {
+                            Map<String, Object> event = new HashMap<>();
+                            event.put("event", "played");
+                            eventSink.success(event);
+                        } else {
+                            Map<String, Object> event = new HashMap<>();
+                            event.put("event", "paused");
+                            eventSink.success(event);
+                        }
+                        updatePositionTicks();
+                    }
+
+                    @Override
+                    public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+                        if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_PLAYLIST_CHANGED
+                                && mediaItem == null) {
+                            return;
+                        }
+                        Map<String, Object> event = new HashMap<>();
+                        event.put("event", "queueItemTransition");
+                        event.put("index", exoPlayer.getCurrentWindowIndex());
+                        event.put("reason", transitionReasonName(reason));
+                        if (exoPlayer.getDuration() != C.TIME_UNSET) {
+                            event.put("duration", exoPlayer.getDuration());
+                        }
+                        eventSink.success(event);
+                    }
+
+                    @Override
+                    public void onPlayerError(final ExoPlaybackException error) {
+                        Player.EventListener.super.onPlayerError(error);
+                        eventSink.error("VideoError", "Video player had error " + error, null);
+                    }
+                };
+        exoPlayer.addListener(playerListener);
+    }
+
+    private static String transitionReasonName(int reason) {
+        switch (reason) {
+            case Player.MEDIA_ITEM_TRANSITION_REASON_REPEAT:
+                return "repeat";
+            case Player.MEDIA_ITEM_TRANSITION_REASON_SEEK:
+                return "seek";
+            case Player.MEDIA_ITEM_TRANSITION_REASON_PLAYLIST_CHANGED:
+                return "queueChanged";
+            case Player.MEDIA_ITEM_TRANSITION_REASON_AUTO:
+            default:
+                return "auto";
+        }
+    }
+
+    /** Inserts {@code dataSource} into the queue at {@code index}, or appends it when null. */
+    void addToQueue(String dataSource, @Nullable Integer index) {
+        MediaSource mediaSource = mediaSourceBuilder.build(dataSource, null);
+        if (index == null) {
+            exoPlayer.addMediaSource(mediaSource);
+        } else {
+            exoPlayer.addMediaSource(index, mediaSource);
+        }
+    }
+
+    void removeFromQueue(int index) {
+        exoPlayer.removeMediaItem(index);
+    }
+
+    void moveQueueItem(int fromIndex, int toIndex) {
+        exoPlayer.moveMediaItem(fromIndex, toIndex);
+    }
+
+    void skipToQueueItem(int index) {
+        exoPlayer.seekTo(index, 0);
+    }
+
+    long getTextureId() {
+        return textureEntry.id();
+    }
+
+    /** Switches the frequent events to the format of {@link CompactEventEncoder}. */
+    void useCompactEvents() {
+        if (compactEncoder == null) {
+            compactEncoder = new CompactEventEncoder();
+        }
+    }
+
+    /** Exposes this player through {@code mediaSession}, which follows whichever member played last. */
+    void joinMediaSession(SharedMediaSession mediaSession) {
+        if (this.mediaSession == null) {
+            this.mediaSession = mediaSession;
+            mediaSession.register(exoPlayer);
+        }
+    }
+
+    void play() {
+        if (mediaSession != null) {
+            mediaSession.focus(exoPlayer);
+        }
+        exoPlayer.setPlayWhenReady(true);
+    }
+
+    void pause() {
+        exoPlayer.setPlayWhenReady(false);
+    }
+
+    void setLooping(boolean value) {
+        exoPlayer.setRepeatMode(value ? REPEAT_MODE_ALL : REPEAT_MODE_OFF);
+    }
+
+    void setPlaybackSpeed(double speed) {
+        exoPlayer.setPlaybackParameters(new PlaybackParameters((float) speed));
+    }
+
+    float getPlaybackSpeed() {
+        return exoPlayer.getPlaybackParameters().speed;
+    }
+
+    void setVolume(double value) {
+        float bracketedValue = (float) Math.max(0.0, Math.min(1.0, value));
+        exoPlayer.setVolume(bracketedValue);
+    }
+
+    /**
+     * Maps a seek mode name from the channel to its {@link SeekParameters}.
+     *
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    static SeekParameters seekParameters(@Nullable String mode) {
+        if (mode == null) {
+            return SeekParameters.EXACT;
+        }
+        switch (mode) {
+            case "exact":
+                return SeekParameters.EXACT;
+            case "closestSync":
+                return SeekParameters.CLOSEST_SYNC;
+            case "previousSync":
+                return SeekParameters.PREVIOUS_SYNC;
+            case "nextSync":
+                return SeekParameters.NEXT_SYNC;
+            default:
+                throw new IllegalArgumentException("Unknown seek mode: " + mode);
+        }
+    }
+
+    /**
+     * Seeks to {@code location}, or, while an earlier seek is still in flight, replaces whatever
+     * seek was waiting for it to complete.
+     */
+    void seekTo(int location, SeekParameters seekParameters) {
+        if (isSeeking) {
+            pendingSeekMs = location;
+            pendingSeekParameters = seekParameters;
+            return;
+        }
+        if (exoPlayer.getPlaybackState() == Player.STATE_IDLE) {
+            // Nothing loads while idle, so there is nothing to wait for.
+            exoPlayer.setSeekParameters(seekParameters);
+            exoPlayer.seekTo(location);
+            sendSeekCompleted();
+            return;
+        }
+        startSeek(location, seekParameters);
+    }
+
+    private void startSeek(long location, SeekParameters seekParameters) {
+        isSeeking = true;
+        exoPlayer.setSeekParameters(seekParameters);
+        exoPlayer.seekTo(location);
+    }
+
+    /** Settles the seek in flight once the player can play from its target, or has ended. */
+    private void maybeSettleSeek() {
+        int playbackState = exoPlayer.getPlaybackState();
+        if (isSeeking && (playbackState == Player.STATE_READY || playbackState == Player.STATE_ENDED)) {
+            onSeekSettled();
+        }
+    }
+
+    /** Starts the pending seek, if any, or reports that seeking is done. */
+    private void onSeekSettled() {
+        if (pendingSeekMs != C.TIME_UNSET) {
+            long location = pendingSeekMs;
+            pendingSeekMs = C.TIME_UNSET;
+            startSeek(location, pendingSeekParameters);
+            return;
+        }
+        isSeeking = false;
+        sendSeekCompleted();
+    }
+
+    private void sendSeekCompleted() {
+        if (compactEncoder != null) {
+            eventSink.success(
+                    compactEncoder.encode(CompactEventEncoder.SEEK_COMPLETED, exoPlayer.getCurrentPosition()));
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "seekCompleted");
+        event.put("position", exoPlayer.getCurrentPosition());
+        eventSink.success(event);
+    }
+
+    long getPosition() {
+        return isHibernated ? hibernatedPositionMs : exoPlayer.getCurrentPosition();
+    }
+
+    boolean isVisible() {
+        return isVisible;
+    }
+
+    /** Offscreen players are the first to be hibernated by the {@link DecoderBudget}. */
+    void setVisible(boolean visible) {
+        isVisible = visible;
+    }
+
+    boolean isPlayWhenReady() {
+        return exoPlayer.getPlayWhenReady();
+    }
+
+    boolean isHibernated() {
+        return isHibernated;
+    }
+
+    /**
+     * Releases the decoders and buffers of this player, keeping its texture, queue, position, speed,
+     * volume and whether it was playing so that {@link #restore()} can pick up where it left off.
+     */
+    void hibernate() {
+        if (isHibernated) {
+            return;
+        }
+        hibernatedWindowIndex = exoPlayer.getCurrentWindowIndex();
+        hibernatedPositionMs = exoPlayer.getCurrentPosition();
+        hibernatedPlayWhenReady = exoPlayer.getPlayWhenReady();
+        exoPlayer.setPlayWhenReady(false);
+        exoPlayer.stop();
+        isHibernated = true;
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "hibernated");
+        event.put("position", hibernatedPositionMs);
+        eventSink.success(event);
+    }
+
+    /**
+     * Prepares a hibernated player again at the position it was hibernated at, playing if it was
+     * playing then.
+     */
+    void restore() {
+        if (!isHibernated) {
+            return;
+        }
+        isHibernated = false;
+        exoPlayer.prepare();
+        exoPlayer.setSeekParameters(SeekParameters.EXACT);
+        exoPlayer.seekTo(hibernatedWindowIndex, hibernatedPositionMs);
+        exoPlayer.setPlayWhenReady(hibernatedPlayWhenReady);
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "restored");
+        eventSink.success(event);
+    }
+
+    /**
+     * Constrains adaptive track selection for this player. Null values lift the corresponding limit.
+     *
+     * <p>The initial bitrate is only used until the bandwidth estimate shared by all players has
+     * been sampled. Once any player has transferred media, this and every later player start from
+     * the measured estimate instead, until the last plugin instance detaches.
+     */
+    void setTrackConstraints(
+            @Nullable Number maxBitrate,
+            @Nullable Number maxWidth,
+            @Nullable Number maxHeight,
+            @Nullable Number initialBitrate) {
+        maxVideoWidth = maxWidth != null ? maxWidth.intValue() : Integer.MAX_VALUE;
+        maxVideoHeight = maxHeight != null ? maxHeight.intValue() : Integer.MAX_VALUE;
+        DefaultTrackSelector.ParametersBuilder parameters = pooledPlayer.trackSelector.buildUponParameters();
+        parameters.setMaxVideoBitrate(maxBitrate != null ? maxBitrate.intValue() : Integer.MAX_VALUE);
+        applyMaxVideoSize(parameters);
+        pooledPlayer.trackSelector.setParameters(parameters);
+        pooledPlayer.bandwidthMeter.setInitialBitrateEstimate(
+                initialBitrate != null ? initialBitrate.longValue() : 0);
+    }
+
+    /**
+     * Switches between normal playback and audio only.
+     *
+     * <p>With video off, the video renderers are disabled in the track selector, so adaptive
+     * streams stop loading video and only load separate audio renditions where the stream has
+     * them, and the surface is detached. Turning video back on seeks to the current position so
+     * that a frame is shown right away instead of at the next key frame.
+     */
+    void setVideoEnabled(boolean enabled) {
+        if (isVideoEnabled == enabled) {
+            return;
+        }
+        isVideoEnabled = enabled;
+        DefaultTrackSelector.ParametersBuilder parameters = pooledPlayer.trackSelector.buildUponParameters();
+        for (int i = 0; i < exoPlayer.getRendererCount(); i++) {
+            if (exoPlayer.getRendererType(i) == C.TRACK_TYPE_VIDEO) {
+                parameters.setRendererDisabled(i, !enabled);
+            }
+        }
+        pooledPlayer.trackSelector.setParameters(parameters);
+        if (enabled) {
+            exoPlayer.setVideoSurface(surface);
+            if (!isHibernated && exoPlayer.getPlaybackState() != Player.STATE_IDLE) {
+                exoPlayer.seekTo(exoPlayer.getCurrentPosition());
+            }
+        } else {
+            exoPlayer.clearVideoSurface();
+        }
+    }
+
+    /**
+     * Caps video track selection while memory is low, on top of the constraints set by {@link
+     * #setTrackConstraints}.
+     */
+    void setVideoSizeCapped(boolean capped) {
+        if (isVideoSizeCapped == capped) {
+            return;
+        }
+        isVideoSizeCapped = capped;
+        DefaultTrackSelector.ParametersBuilder parameters = pooledPlayer.trackSelector.buildUponParameters();
+        applyMaxVideoSize(parameters);
+        pooledPlayer.trackSelector.setParameters(parameters);
+    }
+
+    private void applyMaxVideoSize(DefaultTrackSelector.ParametersBuilder parameters) {
+        if (isVideoSizeCapped) {
+            parameters.setMaxVideoSize(
+                    Math.min(maxVideoWidth, MemoryPressure.CAPPED_MAX_VIDEO_WIDTH),
+                    Math.min(maxVideoHeight, MemoryPressure.CAPPED_MAX_VIDEO_HEIGHT));
+        } else {
+            parameters.setMaxVideoSize(maxVideoWidth, maxVideoHeight);
+        }
+    }
+
+    Map<String, Object> getEventSinkStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("dropped", eventSink.getDroppedCount());
+        stats.put("coalesced", eventSink.getCoalescedCount());
+        return stats;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = statsTracker.getStats();
+        stats.put("droppedEvents", eventSink.getDroppedCount());
+        stats.put("coalescedEvents", eventSink.getCoalescedCount());
+        return stats;
+    }
+
+    /** Sets how often a stats event is pushed while someone listens, or disables it when zero. */
+    void setStatsUpdateInterval(long intervalMs) {
+        statsUpdateIntervalMs = Math.max(0, intervalMs);
+        updateStatsTicks();
+    }
+
+    private void updateStatsTicks() {
+        handler.removeCallbacks(statsTick);
+        if (statsUpdateIntervalMs > 0 && isListening) {
+            handler.postDelayed(statsTick, statsUpdateIntervalMs);
+        }
+    }
+
+    private void onStatsTick() {
+        Map<String, Object> event = getStats();
+        event.put("event", "stats");
+        eventSink.success(event);
+        handler.postDelayed(statsTick, statsUpdateIntervalMs);
+    }
+
+    /** Sets how often position events are pushed while playing, or disables them when zero. */
+    void setPositionUpdateInterval(long intervalMs) {
+        positionUpdateIntervalMs = Math.max(0, intervalMs);
+        handler.removeCallbacks(positionTick);
+        isTicking = false;
+        updatePositionTicks();
+    }
+
+    // Ticks only run while the video is playing and someone listens, a final one is sent when
+    // playback stops so the reported position settles on where the player paused.
+    private void updatePositionTicks() {
+        boolean shouldTick = positionUpdateIntervalMs > 0 && isListening && exoPlayer.isPlaying();
+        if (shouldTick && !isTicking) {
+            isTicking = true;
+            handler.post(positionTick);
+        } else if (!shouldTick && isTicking) {
+            isTicking = false;
+            handler.removeCallbacks(positionTick);
+            sendPosition();
+        }
+    }
+
+    private void onPositionTick() {
+        sendPosition();
+        handler.postDelayed(positionTick, positionUpdateIntervalMs);
+    }
+
+    private void sendPosition() {
+        if (!isListening) {
+            return;
+        }
+        long position = exoPlayer.getCurrentPosition();
+        long bufferedPosition = exoPlayer.getBufferedPosition();
+        if (compactEncoder != null) {
+            eventSink.success(
+                    compactEncoder.encode(CompactEventEncoder.POSITION, position, bufferedPosition));
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "position");
+        event.put("position", position);
+        // ExoPlayer drops media behind the playing position, so what is loaded runs from the
+        // position to the buffered position.
+        List<Long> range = Arrays.asList(position, Math.max(position, bufferedPosition));
+        event.put("values", Collections.singletonList(range));
+        eventSink.success(event);
+    }
+
+    private void sendInitialized() {
+        if (isInitialized && compactEncoder != null) {
+            Format format = exoPlayer.getVideoFormat();
+            eventSink.success(
+                    compactEncoder.encodeInitialized(
+                            exoPlayer.getDuration(),
+                            format != null ? format.width : -1,
+                            format != null ? format.height : -1));
+        } else if (isInitialized) {
+            Map<String, Object> event = new HashMap<>();
+            event.put("event", "initialized");
+            event.put("duration", exoPlayer.getDuration());
+            if (exoPlayer.getVideoFormat() != null) {
+                event.put("width", exoPlayer.getVideoFormat().width);
+                event.put("height", exoPlayer.getVideoFormat().height);
+            }
+            eventSink.success(event);
+        }
+    }
+
+    void dispose() {
+        handler.removeCallbacks(positionTick);
+        handler.removeCallbacks(statsTick);
+        isTicking = false;
+        if (isInitialized) {
+            exoPlayer.stop();
+        }
+        // The player may be reused by another VideoPlayer, so detach everything that refers to this one.
+        exoPlayer.removeListener(playerListener);
+        exoPlayer.removeAnalyticsListener(statsTracker);
+        if (mediaSession != null) {
+            mediaSession.unregister(exoPlayer);
+        }
+        exoPlayer.clearVideoSurface();
+        textureEntry.release();
+        eventChannel.setStreamHandler(null);
+        if (surface != null) {
+            surface.release();
+        }
+        playerPool.release(pooledPlayer);
+    }
+}
@@ -0,0 +1,259 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.database.ExoDatabaseProvider;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.CacheSpan;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide, size-capped on-disk cache for network video sources.
+ *
+ * <p>A {@link SimpleCache} may only be opened once per directory, so all players share the single
+ * instance returned by {@link #getInstance(Context)}. Players opt in individually by wrapping their
+ * upstream HTTP factory with {@link #buildDataSourceFactory(DataSource.Factory)}.
+ *
+ * <p>Cache keys are derived from the request URI with any configured query parameters removed, so
+ * rotating auth tokens and request headers do not split a resource into several cache entries.
+ */
+final class VideoPlayerCache {
+  private static final String CACHE_DIRECTORY = "video_player_cache";
+  static final long DEFAULT_MAX_CACHE_SIZE = 256L * 1024 * 1024;
+
+  private static VideoPlayerCache instance;
+
+  private final SimpleCache cache;
+  private final LruEvictor evictor;
+  private volatile Set<String> ignoredQueryParameters = Collections.emptySet();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong hitBytes = new AtomicLong();
+  private final AtomicLong missBytes = new AtomicLong();
+
+  private final CacheDataSource.EventListener cacheListener =
+      new CacheDataSource.EventListener() {
+        @Override
+        public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+          hits.incrementAndGet();
+          hitBytes.addAndGet(cachedBytesRead);
+        }
+
+        @Override
+        public void onCacheIgnored(int reason) {}
+      };
+
+  private final TransferListener upstreamListener =
+      new TransferListener() {
+        @Override
+        public void onTransferInitializing(
+            DataSource source, DataSpec dataSpec, boolean isNetwork) {}
+
+        @Override
+        public void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {
+          misses.incrementAndGet();
+        }
+
+        @Override
+        public void onBytesTransferred(
+            DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+          missBytes.addAndGet(bytesTransferred);
+        }
+
+        @Override
+        public void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {}
+      };
+
+  static synchronized VideoPlayerCache getInstance(Context context) {
+    if (instance == null) {
+      instance = new VideoPlayerCache(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  /**
+   * Closes the shared cache so that the next {@link #getInstance(Context)} opens it again. Nothing
+   * may read or write the cache at this point; this exists for tests, whose cache directory changes
+   * between runs.
+   */
+  static synchronized void releaseInstance() {
+    if (instance != null) {
+      instance.cache.release();
+      instance = null;
+    }
+  }
+
+  private VideoPlayerCache(Context context) {
+    evictor = new LruEvictor(DEFAULT_MAX_CACHE_SIZE);
+    cache =
+        new SimpleCache(
+            new File(context.getCacheDir(), CACHE_DIRECTORY),
+            evictor,
+            new ExoDatabaseProvider(context));
+  }
+
+  /**
+   * Updates the size cap and the set of query parameters left out of cache keys.
+   *
+   * <p>Lowering the cap evicts least recently used content immediately.
+   */
+  void configure(@Nullable Number maxCacheSize, @Nullable Collection<String> ignoredParameters) {
+    if (ignoredParameters != null) {
+      ignoredQueryParameters = Collections.unmodifiableSet(new HashSet<>(ignoredParameters));
+    }
+    if (maxCacheSize != null) {
+      evictor.setMaxBytes(cache, maxCacheSize.longValue());
+    }
+  }
+
+  CacheDataSource.Factory buildDataSourceFactory(final DataSource.Factory upstreamFactory) {
+    DataSource.Factory countingUpstreamFactory =
+        () -> {
+          DataSource dataSource = upstreamFactory.createDataSource();
+          dataSource.addTransferListener(upstreamListener);
+          return dataSource;
+        };
+    return new CacheDataSource.Factory()
+        .setCache(cache)
+        .setUpstreamDataSourceFactory(countingUpstreamFactory)
+        .setCacheKeyFactory(this::buildCacheKey)
+        .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+        .setEventListener(cacheListener);
+  }
+
+  Map<String, Object> getStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("hits", hits.get());
+    stats.put("misses", misses.get());
+    stats.put("hitBytes", hitBytes.get());
+    stats.put("missBytes", missBytes.get());
+    stats.put("evictions", evictor.evictions.get());
+    stats.put("evictedBytes", evictor.evictedBytes.get());
+    stats.put("cacheSize", cache.getCacheSpace());
+    stats.put("maxCacheSize", evictor.maxBytes);
+    return stats;
+  }
+
+  String buildCacheKey(DataSpec dataSpec) {
+    if (dataSpec.key != null) {
+      return dataSpec.key;
+    }
+    Uri uri = dataSpec.uri;
+    Set<String> ignored = ignoredQueryParameters;
+    if (ignored.isEmpty() || uri.isOpaque() || uri.getQuery() == null) {
+      return uri.toString();
+    }
+    Uri.Builder builder = uri.buildUpon().clearQuery();
+    for (String name : uri.getQueryParameterNames()) {
+      if (ignored.contains(name)) {
+        continue;
+      }
+      for (String value : uri.getQueryParameters(name)) {
+        builder.appendQueryParameter(name, value);
+      }
+    }
+    return builder.build().toString();
+  }
+
+  /**
+   * Least recently used eviction with an adjustable cap.
+   *
+   * <p>{@link SimpleCache} invokes evictor callbacks while holding its own lock, so all mutable
+   * state here is guarded by the cache instance.
+   */
+  private static final class LruEvictor implements CacheEvictor {
+    private final TreeSet<CacheSpan> leastRecentlyUsed =
+        new TreeSet<>(
+            (a, b) ->
+                a.lastTouchTimestamp != b.lastTouchTimestamp
+                    ? Long.compare(a.lastTouchTimestamp, b.lastTouchTimestamp)
+                    : a.compareTo(b));
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private volatile long maxBytes;
+    private long currentSize;
+    private boolean evicting;
+
+    LruEvictor(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    void setMaxBytes(Cache cache, long maxBytes) {
+      synchronized (cache) {
+        this.maxBytes = maxBytes;
+        evictCache(cache, 0);
+      }
+    }
+
+    @Override
+    public boolean requiresCacheSpanTouches() {
+      return true;
+    }
+
+    @Override
+    public void onCacheInitialized() {}
+
+    @Override
+    public void onStartFile(Cache cache, String key, long position, long length) {
+      if (length != C.LENGTH_UNSET) {
+        evictCache(cache, length);
+      }
+    }
+
+    @Override
+    public void onSpanAdded(Cache cache, CacheSpan span) {
+      leastRecentlyUsed.add(span);
+      currentSize += span.length;
+      evictCache(cache, 0);
+    }
+
+    @Override
+    public void onSpanRemoved(Cache cache, CacheSpan span) {
+      if (leastRecentlyUsed.remove(span)) {
+        currentSize -= span.length;
+        if (evicting) {
+          evictions.incrementAndGet();
+          evictedBytes.addAndGet(span.length);
+        }
+      }
+    }
+
+    @Override
+    public void onSpanTouched(Cache cache, CacheSpan oldSpan, CacheSpan newSpan) {
+      onSpanRemoved(cache, oldSpan);
+      onSpanAdded(cache, newSpan);
+    }
+
+    private void evictCache(Cache cache, long requiredSpace) {
+      evicting = true;
+      try {
+        while (currentSize + requiredSpace > maxBytes && !leastRecentlyUsed.isEmpty()) {
+          cache.removeSpan(leastRecentlyUsed.first());
+        }
+      } finally {
+        evicting = false;
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package io.flutter.plugins.videoplayer;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource.BaseFactory;
+import com.google.android.exoplayer2.upstream.HttpDataSource.RequestProperties;
+import com.google.android.exoplayer2.upstream.TransferListener;
+
+import java.util.Map;
+
+// near copy and paste from final class DefaultHttpDataSourceFactory
+final class VideoPlayerHttpDataSourceFactory extends BaseFactory {
+    private final String userAgent;
+    private final @Nullable
+    TransferListener listener;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final boolean allowCrossProtocolRedirects;
+
+    public VideoPlayerHttpDataSourceFactory(
+            String userAgent,
+            @Nullable TransferListener listener,
+            int connectTimeoutMillis,
+            int readTimeoutMillis,
+            boolean allowCrossProtocolRedirects,
+            Map<String, String> headers) {
+        this.userAgent = userAgent;
+        this.listener = listener;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.allowCrossProtocolRedirects = allowCrossProtocolRedirects;
+        // Copied once here; BaseFactory hands these same properties to every data source.
+        if (headers != null) {
+            getDefaultRequestProperties().set(headers);
+        }
+    }
+
+    @Override
+    protected DefaultHttpDataSource createDataSourceInternal(
+            RequestProperties defaultRequestProperties) {
+        DefaultHttpDataSource dataSource =
+                new DefaultHttpDataSource(
+                        userAgent,
+                        connectTimeoutMillis,
+                        readTimeoutMillis,
+                        allowCrossProtocolRedirects,
+                        defaultRequestProperties);
+        if (listener != null) {
+            dataSource.addTransferListener(listener);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,221 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.net.Uri;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.ext.okhttp.OkHttpDataSourceFactory;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * Builds the HTTP data source factories used by network players.
+ *
+ * <p>By default every player gets its own {@link VideoPlayerHttpDataSourceFactory}. Once the
+ * shared stack is enabled, all players go through one {@link OkHttpClient} whose connection pool
+ * keeps connections alive between segment requests, and the number of connections open to any one
+ * host can be bounded.
+ *
+ * <p>A data source holds its host's permit from open until close, which for progressive media is
+ * as long as the player keeps loading. The per-host bound must therefore exceed the number of
+ * progressive players expected to stream from one host at once; it is off by default.
+ */
+final class VideoPlayerHttpStack {
+  static final String USER_AGENT =
+      "Mozilla/5.0 (X11; Linux x86_64; rv:84.0) Gecko/20100101 Firefox/84.0";
+  static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+  static final long DEFAULT_KEEP_ALIVE_MS = 5 * 60 * 1000;
+
+  private static VideoPlayerHttpStack instance;
+
+  private boolean useSharedClient = false;
+  private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+  private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+  @Nullable private HostLimiter hostLimiter = null;
+  private OkHttpClient client;
+
+  static synchronized VideoPlayerHttpStack getInstance() {
+    if (instance == null) {
+      instance = new VideoPlayerHttpStack();
+    }
+    return instance;
+  }
+
+  /**
+   * Null arguments keep the current value, a {@code maxConnectionsPerHost} of zero or less lifts
+   * the per-host bound. Applies to players created afterwards.
+   */
+  synchronized void configure(
+      @Nullable Boolean useSharedClient,
+      @Nullable Number maxIdleConnections,
+      @Nullable Number keepAliveMs,
+      @Nullable Number maxConnectionsPerHost) {
+    if (useSharedClient != null) {
+      this.useSharedClient = useSharedClient;
+    }
+    if (maxIdleConnections != null || keepAliveMs != null) {
+      if (maxIdleConnections != null) {
+        this.maxIdleConnections = maxIdleConnections.intValue();
+      }
+      if (keepAliveMs != null) {
+        this.keepAliveMs = keepAliveMs.longValue();
+      }
+      releaseClient();
+    }
+    if (maxConnectionsPerHost != null) {
+      hostLimiter =
+          maxConnectionsPerHost.intValue() > 0
+              ? new HostLimiter(maxConnectionsPerHost.intValue())
+              : null;
+    }
+  }
+
+  /**
+   * Returns a factory for network data sources sending {@code headers} with every request.
+   *
+   * <p>The headers are copied once here rather than for every data source the factory creates.
+   */
+  synchronized DataSource.Factory buildDataSourceFactory(@Nullable Map<String, String> headers) {
+    if (!useSharedClient) {
+      return new VideoPlayerHttpDataSourceFactory(
+          USER_AGENT,
+          null,
+          DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+          DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS,
+          true,
+          headers);
+    }
+    OkHttpDataSourceFactory factory = new OkHttpDataSourceFactory(getClient(), USER_AGENT);
+    if (headers != null) {
+      factory.getDefaultRequestProperties().set(headers);
+    }
+    HostLimiter limiter = hostLimiter;
+    if (limiter == null) {
+      return factory;
+    }
+    return () -> new HostLimitedDataSource(factory.createDataSource(), limiter);
+  }
+
+  /** Drops the shared client and closes its idle connections. */
+  synchronized void releaseClient() {
+    if (client != null) {
+      client.connectionPool().evictAll();
+      client = null;
+    }
+  }
+
+  private OkHttpClient getClient() {
+    if (client == null) {
+      client =
+          new OkHttpClient.Builder()
+              .connectionPool(
+                  new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+              .connectTimeout(
+                  DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+              .readTimeout(
+                  DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+              .build();
+    }
+    return client;
+  }
+
+  /** Hands out a fixed number of permits per host. */
+  private static final class HostLimiter {
+    private final int permitsPerHost;
+    private final Map<String, Semaphore> permits = new HashMap<>();
+
+    HostLimiter(int permitsPerHost) {
+      this.permitsPerHost = permitsPerHost;
+    }
+
+    synchronized Semaphore forHost(@Nullable String host) {
+      String key = host == null ? "" : host;
+      Semaphore semaphore = permits.get(key);
+      if (semaphore == null) {
+        semaphore = new Semaphore(permitsPerHost, /* fair= */ true);
+        permits.put(key, semaphore);
+      }
+      return semaphore;
+    }
+  }
+
+  /** Holds one of its host's permits from {@link #open} until {@link #close}. */
+  private static final class HostLimitedDataSource implements DataSource {
+    private final DataSource delegate;
+    private final HostLimiter limiter;
+    @Nullable private Semaphore heldPermit;
+
+    HostLimitedDataSource(DataSource delegate, HostLimiter limiter) {
+      this.delegate = delegate;
+      this.limiter = limiter;
+    }
+
+    @Override
+    public void addTransferListener(TransferListener transferListener) {
+      delegate.addTransferListener(transferListener);
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+      Semaphore permit = limiter.forHost(dataSpec.uri.getHost());
+      try {
+        permit.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      heldPermit = permit;
+      try {
+        return delegate.open(dataSpec);
+      } catch (IOException | RuntimeException e) {
+        releasePermit();
+        throw e;
+      }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int readLength) throws IOException {
+      return delegate.read(buffer, offset, readLength);
+    }
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+      return delegate.getUri();
+    }
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+      return delegate.getResponseHeaders();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        delegate.close();
+      } finally {
+        releasePermit();
+      }
+    }
+
+    private void releasePermit() {
+      if (heldPermit != null) {
+        heldPermit.release();
+        heldPermit = null;
+      }
+    }
+  }
+}
@@ -1,44 +1,21 @@
 package io.flutter.plugins.videoplayer;
 
 import android.content.Context;
-import android.net.Uri;
-import android.os.Build;
-import android.support.v4.media.session.MediaSessionCompat;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
 import android.util.Log;
-import android.view.Surface;
-
-import androidx.annotation.Nullable;
 
 import com.google.android.exoplayer2.C;
-import com.google.android.exoplayer2.ExoPlaybackException;
-import com.google.android.exoplayer2.MediaItem;
-import com.google.android.exoplayer2.PlaybackParameters;
-import com.google.android.exoplayer2.Player;
-import com.google.android.exoplayer2.SimpleExoPlayer;
-import com.google.android.exoplayer2.audio.AudioAttributes;
-import com.google.android.exoplayer2.ext.mediasession.MediaSessionConnector;
-import com.google.android.exoplayer2.source.MediaSource;
-import com.google.android.exoplayer2.source.ProgressiveMediaSource;
-import com.google.android.exoplayer2.source.dash.DashMediaSource;
-import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
-import com.google.android.exoplayer2.source.hls.HlsMediaSource;
-import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
-import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
-import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
-import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
-import com.google.android.exoplayer2.upstream.HttpDataSource.BaseFactory;
-import com.google.android.exoplayer2.upstream.HttpDataSource.RequestProperties;
-import com.google.android.exoplayer2.upstream.TransferListener;
-import com.google.android.exoplayer2.util.Util;
-
-import java.util.Arrays;
+import com.google.android.exoplayer2.SeekParameters;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.plugin.common.BinaryMessenger;
@@ -49,16 +26,34 @@ import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
 import io.flutter.view.TextureRegistry;
 
-import static com.google.android.exoplayer2.Player.REPEAT_MODE_ALL;
-import static com.google.android.exoplayer2.Player.REPEAT_MODE_OFF;
-
 public class VideoPlayerPlugin implements MethodCallHandler, FlutterPlugin {
+    private static final String TAG = "VideoPlayerPlugin";
+
+    private static final String[] PRELOAD_OPTIONS = {
+            "uris", "headers", "cache", "cacheKey", "bufferingProfile", "bufferingConfig",
+            "maxBitrate", "maxVideoWidth", "maxVideoHeight", "initialBitrate"
+    };
 
     private Map<Long, VideoPlayer> videoPlayers;
     private BinaryMessenger messenger;
     private TextureRegistry textureRegistry;
     private Context context;
     private FlutterAssets assets;
+    private final VideoPlayerPreloader preloader = new VideoPlayerPreloader();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Shared with the plugin instances of other engines; see SharedResources.
+    private SharedResources.Client sharedClient;
+    private ExoPlayerPool playerPool;
+    private ExecutorService setupExecutor;
+    private SharedMediaSession mediaSession;
+    private DecoderBudget decoderBudget;
+    private ThumbnailExtractor thumbnails;
+    private MemoryPressure memoryPressure;
+    private PrefetchManager prefetches;
+    private EventChannel pluginEventChannel;
+    private final QueuingEventSink pluginEvents = new QueuingEventSink();
+    // Bumped whenever all players are dropped, so creates still in flight know to discard theirs.
+    private int generation = 0;
 
     @Override
     public void onAttachedToEngine(FlutterPlugin.FlutterPluginBinding binding) {
@@ -67,20 +62,102 @@ public class VideoPlayerPlugin implements MethodCallHandler, FlutterPlugin {
         this.textureRegistry = binding.getTextureRegistry();
         this.context = binding.getApplicationContext();
         this.assets = binding.getFlutterAssets();
+        this.sharedClient =
+                new SharedResources.Client() {
+                    @Override
+                    public void onMemoryPressure(int tier, int level) {
+                        VideoPlayerPlugin.this.onMemoryPressure(tier, level);
+                    }
+
+                    @Override
+                    public void onMemoryPressureRelieved() {
+                        VideoPlayerPlugin.this.onMemoryPressureRelieved();
+                    }
+
+                    @Override
+                    public void onPrefetchChanged(Map<String, Object> prefetch) {
+                        Map<String, Object> event = new HashMap<>(prefetch);
+                        event.put("event", "prefetch");
+                        pluginEvents.success(event);
+                    }
+                };
+        SharedResources shared = SharedResources.attach(context, sharedClient);
+        this.playerPool = shared.playerPool;
+        this.setupExecutor = shared.setupExecutor;
+        this.mediaSession = shared.mediaSession;
+        this.decoderBudget = shared.decoderBudget;
+        this.thumbnails = shared.thumbnails;
+        this.memoryPressure = shared.memoryPressure;
+        this.prefetches = shared.prefetches;
 
         final MethodChannel methodChannel = new MethodChannel(binding.getBinaryMessenger(), "flutter.io/videoPlayer");
         methodChannel.setMethodCallHandler(this);
+        pluginEventChannel = new EventChannel(binding.getBinaryMessenger(), "flutter.io/videoPlayer/events");
+        pluginEventChannel.setStreamHandler(
+                new EventChannel.StreamHandler() {
+                    @Override
+                    public void onListen(Object arguments, EventChannel.EventSink events) {
+                        pluginEvents.setDelegate(events);
+                    }
+
+                    @Override
+                    public void onCancel(Object arguments) {
+                        pluginEvents.setDelegate(null);
+                    }
+                });
     }
 
     @Override
     public void onDetachedFromEngine(FlutterPlugin.FlutterPluginBinding binding) {
         this.onDestroy();
+        // Only released once no other engine uses them.
+        SharedResources.detach(sharedClient);
+        this.pluginEventChannel.setStreamHandler(null);
+        this.pluginEvents.setDelegate(null);
 
         this.videoPlayers = null;
         this.messenger = null;
         this.textureRegistry = null;
         this.context = null;
         this.assets = null;
+        this.sharedClient = null;
+        this.playerPool = null;
+        this.setupExecutor = null;
+        this.mediaSession = null;
+        this.decoderBudget = null;
+        this.thumbnails = null;
+        this.memoryPressure = null;
+        this.prefetches = null;
+        this.pluginEventChannel = null;
+    }
+
+    /** Responds for this engine's players; the shared resources have already responded. */
+    private void onMemoryPressure(int tier, int level) {
+        if (tier >= MemoryPressure.TIER_DROP_BACK_BUFFER) {
+            preloader.clear();
+        }
+        for (VideoPlayer player : videoPlayers.values()) {
+            if (tier >= MemoryPressure.TIER_CAP_TRACKS) {
+                player.setVideoSizeCapped(true);
+            }
+            if (tier >= MemoryPressure.TIER_RELEASE_PAUSED && !player.isPlayWhenReady()) {
+                decoderBudget.hibernate(player);
+            }
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "memoryPressure");
+        event.put("level", level);
+        event.put("tier", tier);
+        pluginEvents.success(event);
+    }
+
+    private void onMemoryPressureRelieved() {
+        for (VideoPlayer player : videoPlayers.values()) {
+            player.setVideoSizeCapped(false);
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("event", "memoryPressureRelieved");
+        pluginEvents.success(event);
     }
 
     void onDestroy() {
@@ -89,9 +166,13 @@ public class VideoPlayerPlugin implements MethodCallHandler, FlutterPlugin {
         // be replaced with just asserting that videoPlayers.isEmpty().
         // https://github.com/flutter/flutter/issues/20989 tracks this.
         for (VideoPlayer player : videoPlayers.values()) {
+            decoderBudget.remove(player);
+            thumbnails.cancel(player);
             player.dispose();
         }
         videoPlayers.clear();
+        preloader.clear();
+        generation++;
     }
 
     @Override
@@ -103,377 +184,518 @@ public class VideoPlayerPlugin implements MethodCallHandler, FlutterPlugin {
         }
         switch (call.method) {
             case "init":
+                // Only this engine's players; those of other engines are left alone.
                 for (VideoPlayer player : videoPlayers.values()) {
+                    decoderBudget.remove(player);
+                    thumbnails.cancel(player);
                     player.dispose();
                 }
                 videoPlayers.clear();
+                preloader.clear();
+                generation++;
+                break;
+            case "configureCache":
+                VideoPlayerCache.getInstance(context)
+                        .configure(call.argument("maxCacheSize"), call.argument("ignoredQueryParameters"));
+                result.success(null);
+                break;
+            case "getCacheStats":
+                result.success(VideoPlayerCache.getInstance(context).getStats());
+                break;
+            case "configureHttpStack":
+                VideoPlayerHttpStack.getInstance()
+                        .configure(
+                                call.argument("useSharedClient"),
+                                call.argument("maxIdleConnections"),
+                                call.argument("keepAliveMs"),
+                                call.argument("maxConnectionsPerHost"));
+                result.success(null);
                 break;
             case "create": {
-                TextureRegistry.SurfaceTextureEntry handle = textures.createSurfaceTexture();
-                EventChannel eventChannel =
-                        new EventChannel(
-                                messenger, "flutter.io/videoPlayer/videoEvents" + handle.id());
-
-                VideoPlayer player;
-                if (call.argument("asset") != null) {
-                    String assetLookupKey;
-                    if (call.argument("package") != null) {
-                        assetLookupKey =
-                                assets.getAssetFilePathByName(
-                                        call.argument("asset"), call.argument("package"));
-                    } else {
-                        assetLookupKey = assets.getAssetFilePathByName(call.argument("asset"));
-                    }
-                    player =
-                            new VideoPlayer(
-                                    context,
-                                    eventChannel,
-                                    handle,
-                                    "asset:///" + assetLookupKey,
-                                    null,
-                                    result);
-                    videoPlayers.put(handle.id(), player);
-                } else {
-                    player =
-                            new VideoPlayer(
-                                    context,
-                                    eventChannel,
-                                    handle,
-                                    call.argument("uri"),
-                                    call.argument("headers"),
-                                    result);
-                    videoPlayers.put(handle.id(), player);
+                VideoPlayer player = preloader.take(dataSourceKey(call), preloadOptions(call));
+                if (player != null) {
+                    // The preload may have been made with another interval.
+                    player.setPositionUpdateInterval(positionUpdateInterval(call));
+                    registerVideoPlayer(player, call);
+                    Map<String, Object> timings = new HashMap<>();
+                    timings.put("fromPreload", true);
+                    Map<String, Object> reply = new HashMap<>();
+                    reply.put("textureId", player.getTextureId());
+                    reply.put("timings", timings);
+                    result.success(reply);
+                    break;
+                }
+                VideoPlayerSetup setup;
+                try {
+                    setup = newSetup(call);
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid arguments", e.getMessage(), null);
+                    return;
                 }
+                createVideoPlayerAsync(textures, call, setup, result);
                 break;
             }
-            default: {
-                long textureId = ((Number) Objects.requireNonNull(call.argument("textureId"))).longValue();
-                VideoPlayer player = videoPlayers.get(textureId);
-                if (player == null) {
-                    result.error(
-                            "Unknown textureId",
-                            "No video player associated with texture id " + textureId,
-                            null);
+            case "preload": {
+                int priority = call.argument("priority") != null ? ((Number) call.argument("priority")).intValue() : 0;
+                boolean preloaded;
+                try {
+                    preloaded =
+                            preloader.preload(dataSourceKey(call), preloadOptions(call), priority, () -> createVideoPlayer(textures, call, newSetup(call)));
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid arguments", e.getMessage(), null);
                     return;
                 }
-                onMethodCall(call, result, textureId, player);
+                Map<String, Object> reply = new HashMap<>();
+                reply.put("preloaded", preloaded);
+                result.success(reply);
                 break;
             }
-        }
-    }
-
-    private void onMethodCall(MethodCall call, Result result, long textureId, VideoPlayer player) {
-        switch (call.method) {
-            case "setLooping":
-                player.setLooping(call.argument("looping"));
-                result.success(null);
+            case "cancelPreload":
+                result.success(preloader.cancel(dataSourceKey(call)));
                 break;
-            case "setVolume":
-                player.setVolume(call.argument("volume"));
+            case "configurePlayerPool":
+                playerPool.configure(
+                        ((Number) Objects.requireNonNull(call.argument("maxSize"))).intValue(),
+                        ((Number) Objects.requireNonNull(call.argument("idleTimeoutMs"))).longValue());
                 result.success(null);
                 break;
-            case "play":
-                player.play();
+            case "configureThumbnails":
+                thumbnails.configure(((Number) Objects.requireNonNull(call.argument("maxCacheBytes"))).intValue());
                 result.success(null);
                 break;
-            case "pause":
-                player.pause();
-                result.success(null);
+            case "getFrames":
+                getFrames(call, result);
                 break;
-            case "seekTo":
-                int location = ((Number) Objects.requireNonNull(call.argument("location"))).intValue();
-                player.seekTo(location);
+            case "simulateTrimMemory":
+                memoryPressure.onTrimMemory(((Number) Objects.requireNonNull(call.argument("level"))).intValue());
                 result.success(null);
                 break;
-            case "setPlaybackSpeed":
-                double speed = call.argument("speed");
-                player.setPlaybackSpeed(speed);
+            case "configureDecoderBudget":
+                decoderBudget.configure(((Number) Objects.requireNonNull(call.argument("maxActivePlayers"))).intValue());
                 result.success(null);
                 break;
-            case "getPlaybackSpeed":
-                result.success(player.getPlaybackSpeed());
+            case "prefetch": {
+                String uri = Objects.requireNonNull(call.argument("uri"));
+                Number priority = call.argument("priority");
+                Number lengthBytes = call.argument("lengthBytes");
+                Number maxBitrate = call.argument("maxBitrate");
+                try {
+                    result.success(
+                            prefetches.enqueue(
+                                    uri,
+                                    call.argument("headers"),
+                                    call.argument("cacheKey"),
+                                    priority != null ? priority.intValue() : 0,
+                                    lengthBytes != null ? lengthBytes.longValue() : C.LENGTH_UNSET,
+                                    maxBitrate != null ? maxBitrate.intValue() : 0,
+                                    !Boolean.FALSE.equals(call.argument("requiresUnmetered"))));
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid arguments", e.getMessage(), null);
+                }
                 break;
-            case "position":
-                result.success(player.getPosition());
+            }
+            case "cancelPrefetch":
+                result.success(
+                        prefetches.cancel(
+                                Objects.requireNonNull(call.argument("uri")),
+                                Boolean.TRUE.equals(call.argument("removeData"))));
                 break;
-            case "dispose":
-                player.dispose();
-                videoPlayers.remove(textureId);
+            case "setPrefetchPriority":
+                result.success(
+                        prefetches.setPriority(
+                                Objects.requireNonNull(call.argument("uri")),
+                                ((Number) Objects.requireNonNull(call.argument("priority"))).intValue()));
+                break;
+            case "getPrefetch":
+                result.success(prefetches.get(Objects.requireNonNull(call.argument("uri"))));
+                break;
+            case "getPrefetches":
+                result.success(prefetches.getAll());
+                break;
+            case "configurePrefetch":
+                prefetches.configure(call.argument("maxConcurrent"), call.argument("quotaBytes"));
+                result.success(null);
+                break;
+            case "setMaxPreloads":
+                preloader.setMaxPreloads(((Number) Objects.requireNonNull(call.argument("maxPreloads"))).intValue());
                 result.success(null);
                 break;
+            case "batch": {
+                // Commands are applied in order within this single platform-thread pass; a failing
+                // command is reported in its slot and does not stop the ones after it.
+                List<Map<String, Object>> commands = Objects.requireNonNull(call.argument("commands"));
+                List<Object> results = new ArrayList<>(commands.size());
+                for (Map<String, Object> command : commands) {
+                    BatchResult commandResult = new BatchResult();
+                    try {
+                        dispatchToPlayer(new MethodCall((String) command.get("method"), command), commandResult);
+                    } catch (RuntimeException e) {
+                        // Missing or mistyped arguments; whatever the command applied before failing stays.
+                        commandResult.reply.clear();
+                        commandResult.error("Invalid arguments", String.valueOf(e), null);
+                    }
+                    results.add(commandResult.reply);
+                }
+                result.success(results);
+                break;
+            }
             default:
-                result.notImplemented();
+                dispatchToPlayer(call, result);
                 break;
         }
     }
 
-    // near copy and paste from final class DefaultHttpDataSourceFactory
-    private static class VideoPlayerHttpDataSourceFactory extends BaseFactory {
-        private final String userAgent;
-        private final @Nullable
-        TransferListener listener;
-        private final int connectTimeoutMillis;
-        private final int readTimeoutMillis;
-        private final boolean allowCrossProtocolRedirects;
-        private final Map<String, String> headers;
-
-        public VideoPlayerHttpDataSourceFactory(
-                String userAgent,
-                @Nullable TransferListener listener,
-                int connectTimeoutMillis,
-                int readTimeoutMillis,
-                boolean allowCrossProtocolRedirects,
-                Map<String, String> headers) {
-            this.userAgent = userAgent;
-            this.listener = listener;
-            this.connectTimeoutMillis = connectTimeoutMillis;
-            this.readTimeoutMillis = readTimeoutMillis;
-            this.allowCrossProtocolRedirects = allowCrossProtocolRedirects;
-            this.headers = headers;
+    private void dispatchToPlayer(MethodCall call, Result result) {
+        Number textureIdArgument = call.argument("textureId");
+        if (textureIdArgument == null) {
+            result.error("Missing textureId", "No texture id given for " + call.method, null);
+            return;
         }
-
-        @Override
-        protected DefaultHttpDataSource createDataSourceInternal(
-                RequestProperties defaultRequestProperties) {
-            if (this.headers != null) {
-                if (defaultRequestProperties == null) {
-                    defaultRequestProperties = new RequestProperties();
-                }
-                for (Map.Entry<String, String> header : this.headers.entrySet()) {
-                    defaultRequestProperties.set(header.getKey(), header.getValue());
-                }
-            }
-            DefaultHttpDataSource dataSource =
-                    new DefaultHttpDataSource(
-                            userAgent,
-                            connectTimeoutMillis,
-                            readTimeoutMillis,
-                            allowCrossProtocolRedirects,
-                            defaultRequestProperties);
-            if (listener != null) {
-                dataSource.addTransferListener(listener);
-            }
-            return dataSource;
+        long textureId = textureIdArgument.longValue();
+        VideoPlayer player = videoPlayers.get(textureId);
+        if (player == null) {
+            result.error(
+                    "Unknown textureId",
+                    "No video player associated with texture id " + textureId,
+                    null);
+            return;
         }
+        onMethodCall(call, result, textureId, player);
     }
 
-    private static class VideoPlayer {
-
-        private final SimpleExoPlayer exoPlayer;
-        private final TextureRegistry.SurfaceTextureEntry textureEntry;
-        private final QueuingEventSink eventSink = new QueuingEventSink();
-        private final EventChannel eventChannel;
-        private Surface surface;
-        private boolean isInitialized = false;
-
-        VideoPlayer(
-                Context context,
-                EventChannel eventChannel,
-                TextureRegistry.SurfaceTextureEntry textureEntry,
-                String dataSource,
-                Map<String, String> headers,
-                Result result) {
-            this.eventChannel = eventChannel;
-            this.textureEntry = textureEntry;
-
-            exoPlayer = new SimpleExoPlayer.Builder(context).setTrackSelector(new DefaultTrackSelector(context)).build();
-
-            Uri uri = Uri.parse(dataSource);
-
-            DataSource.Factory dataSourceFactory;
-            if (Objects.requireNonNull(uri.getScheme()).equals("asset") || uri.getScheme().equals("file")) {
-                dataSourceFactory = new DefaultDataSourceFactory(context, "ExoPlayer");
-            } else {
-                dataSourceFactory =
-                        new VideoPlayerHttpDataSourceFactory(
-                                "Mozilla/5.0 (X11; Linux x86_64; rv:84.0) Gecko/20100101 Firefox/84.0",
-                                null,
-                                DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS,
-                                DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS,
-                                true,
-                                headers);
-            }
+    /** Records the outcome of one command of a {@code batch} call as a reply map. */
+    private static class BatchResult implements Result {
+        private final Map<String, Object> reply = new HashMap<>();
 
-            MediaSource mediaSource = buildMediaSource(uri, dataSourceFactory, context);
-            exoPlayer.setMediaSource(mediaSource);
-            exoPlayer.prepare();
+        @Override
+        public void success(Object value) {
+            reply.put("result", value);
+        }
 
-            setupVideoPlayer(eventChannel, textureEntry, result, context);
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+            reply.put("error", errorCode);
+            reply.put("message", errorMessage);
         }
 
-        @SuppressWarnings("deprecation")
-        private static void setAudioAttributes(SimpleExoPlayer exoPlayer) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                exoPlayer.setAudioAttributes(
-                        new AudioAttributes.Builder()
-                                .setUsage(C.USAGE_MEDIA)
-                                .setContentType(C.CONTENT_TYPE_MOVIE)
-                                .build(), true);
-            } else exoPlayer.setAudioStreamType(C.STREAM_TYPE_MUSIC);
+        @Override
+        public void notImplemented() {
+            reply.put("error", "notImplemented");
         }
+    }
 
-        private MediaSource buildMediaSource(
-                Uri uri, DataSource.Factory mediaDataSourceFactory, Context context) {
-            int type = Util.inferContentType(uri.getLastPathSegment());
-            switch (type) {
-                case C.TYPE_SS:
-                    return new SsMediaSource.Factory(
-                            new DefaultSsChunkSource.Factory(mediaDataSourceFactory),
-                            new DefaultDataSourceFactory(context, null, mediaDataSourceFactory))
-                            .createMediaSource(MediaItem.fromUri(uri));
-                case C.TYPE_DASH:
-                    return new DashMediaSource.Factory(
-                            new DefaultDashChunkSource.Factory(mediaDataSourceFactory),
-                            new DefaultDataSourceFactory(context, null, mediaDataSourceFactory))
-                            .createMediaSource(MediaItem.fromUri(uri));
-                case C.TYPE_HLS:
-                    return new HlsMediaSource.Factory(mediaDataSourceFactory)
-                            .createMediaSource(MediaItem.fromUri(uri));
-                case C.TYPE_OTHER:
-                    return new ProgressiveMediaSource.Factory(mediaDataSourceFactory)
-                            .createMediaSource(MediaItem.fromUri(uri));
-                default: {
-                    throw new IllegalStateException("Unsupported type: " + type);
-                }
+    private String dataSourceKey(MethodCall call) {
+        if (call.argument("asset") != null) {
+            if (call.argument("package") != null) {
+                return "asset:///" + assets.getAssetFilePathByName(call.argument("asset"), call.argument("package"));
             }
+            return "asset:///" + assets.getAssetFilePathByName(call.argument("asset"));
         }
-
-        private void setupVideoPlayer(
-                EventChannel eventChannel,
-                TextureRegistry.SurfaceTextureEntry textureEntry,
-                Result result,
-                Context context) {
-
-            eventChannel.setStreamHandler(
-                    new EventChannel.StreamHandler() {
-                        @Override
-                        public void onListen(Object o, EventChannel.EventSink sink) {
-                            eventSink.setDelegate(sink);
-                        }
-
-                        @Override
-                        public void onCancel(Object o) {
-                            eventSink.setDelegate(null);
-                        }
-                    });
-
-            surface = new Surface(textureEntry.surfaceTexture());
-            exoPlayer.setVideoSurface(surface);
-            setAudioAttributes(exoPlayer);
-
-            exoPlayer.addListener(
-                    new Player.EventListener() {
-                        @Override
-                        public void onPlaybackStateChanged(final int playbackState) {
-                            Player.EventListener.super.onPlaybackStateChanged(playbackState);
-                            if (playbackState == Player.STATE_BUFFERING) {
-                                Map<String, Object> event = new HashMap<>();
-                                event.put("event", "bufferingUpdate");
-                                List<Integer> range = Arrays.asList(0, exoPlayer.getBufferedPercentage());
-                                // iOS supports a list of buffered ranges, so here is a list with a single range.
-                                event.put("values", Collections.singletonList(range));
-                                event.put("event", "bufferingStart");
-                                eventSink.success(event);
-                            } else if (playbackState == Player.STATE_READY) {
-                                if (isInitialized) {
-                                    Map<String, Object> event = new HashMap<>();
-                                    event.put("event", "bufferingEnd");
-                                    eventSink.success(event);
-                                } else {
-                                    isInitialized = true;
-                                    sendInitialized();
-                                }
-                            }
-                        }
-
-                        @Override
-                        public void onIsPlayingChanged(boolean isPlaying) {
-                            if (isPlaying) {
-                                Map<String, Object> event = new HashMap<>();
-                                event.put("event", "played");
-                                eventSink.success(event);
-                            } else {
-                                Map<String, Object> event = new HashMap<>();
-                                event.put("event", "paused");
-                                eventSink.success(event);
-                            }
-                        }
-
-                        @Override
-                        public void onPlayerError(final ExoPlaybackException error) {
-                            Player.EventListener.super.onPlayerError(error);
-                            eventSink.error("VideoError", "Video player had error " + error, null);
-                        }
-                    });
-
-            MediaSessionCompat mediaSession = new MediaSessionCompat(context, "packageName");
-            MediaSessionConnector mediaSessionConnector = new MediaSessionConnector(mediaSession);
-            mediaSessionConnector.setPlayer(exoPlayer);
-            mediaSession.setActive(true);
-
-            Map<String, Object> reply = new HashMap<>();
-            reply.put("textureId", textureEntry.id());
-            result.success(reply);
+        if (call.argument("uris") != null) {
+            return TextUtils.join("\n", dataSources(call));
         }
+        return call.argument("uri");
+    }
 
-        void play() {
-            exoPlayer.setPlayWhenReady(true);
+    /** The network sources to play, either a {@code uris} queue or a single {@code uri}. */
+    private static List<String> dataSources(MethodCall call) {
+        List<String> uris = call.argument("uris");
+        if (uris != null) {
+            if (uris.isEmpty()) {
+                throw new IllegalArgumentException("The uris queue must not be empty");
+            }
+            return uris;
         }
+        return Collections.singletonList(Objects.requireNonNull(call.argument("uri")));
+    }
 
-        void pause() {
-            exoPlayer.setPlayWhenReady(false);
+    /**
+     * The arguments that shape how a player is built, so a preload is only adopted when they match.
+     * This includes the buffering profile in effect, which memory pressure may have changed since
+     * the preload.
+     */
+    private Map<String, Object> preloadOptions(MethodCall call) {
+        Map<String, Object> options = new HashMap<>();
+        for (String name : PRELOAD_OPTIONS) {
+            options.put(name, call.argument(name));
         }
-
-        void setLooping(boolean value) {
-            exoPlayer.setRepeatMode(value ? REPEAT_MODE_ALL : REPEAT_MODE_OFF);
+        try {
+            options.put("bufferingProfileKey", bufferingProfile(call).key());
+        } catch (IllegalArgumentException e) {
+            // Reported by newSetup; no preload can have been built from these arguments.
+            options.put("bufferingProfileKey", null);
         }
+        return options;
+    }
 
-        void setPlaybackSpeed(double speed) {
-            exoPlayer.setPlaybackParameters(new PlaybackParameters((float) speed));
+    /**
+     * Resolves the requested buffering profile. Under memory pressure it loses its back buffer but
+     * is otherwise kept.
+     *
+     * @throws IllegalArgumentException if the profile arguments are invalid.
+     */
+    private BufferingProfile bufferingProfile(MethodCall call) {
+        BufferingProfile requested =
+                BufferingProfile.fromArguments(call.argument("bufferingProfile"), call.argument("bufferingConfig"));
+        if (memoryPressure.getTier() < MemoryPressure.TIER_DROP_BACK_BUFFER) {
+            return requested;
         }
-
-        float getPlaybackSpeed() {
-            return exoPlayer.getPlaybackParameters().speed;
+        BufferingProfile reduced = requested.withoutBackBuffer();
+        if (reduced != requested) {
+            Log.i(TAG, "Dropping the back buffer of a new player under memory pressure: " + reduced.key());
         }
+        return reduced;
+    }
+
+    private static void setTrackConstraints(VideoPlayer player, MethodCall call) {
+        player.setTrackConstraints(
+                call.argument("maxBitrate"),
+                call.argument("maxVideoWidth"),
+                call.argument("maxVideoHeight"),
+                call.argument("initialBitrate"));
+    }
+
+    private static long positionUpdateInterval(MethodCall call) {
+        Number intervalMs = call.argument("positionUpdateIntervalMs");
+        return intervalMs == null ? 0 : intervalMs.longValue();
+    }
 
-        void setVolume(double value) {
-            float bracketedValue = (float) Math.max(0.0, Math.min(1.0, value));
-            exoPlayer.setVolume(bracketedValue);
+    private void getFrames(MethodCall call, Result result) {
+        List<Number> times = Objects.requireNonNull(call.argument("timesMs"));
+        List<Long> timesMs = new ArrayList<>(times.size());
+        for (Number time : times) {
+            timesMs.add(time.longValue());
         }
+        Number width = call.argument("width");
+        Number height = call.argument("height");
+        Number textureId = call.argument("textureId");
+        thumbnails.getFrames(
+                dataSourceKey(call),
+                call.argument("headers"),
+                timesMs,
+                width == null ? 0 : width.intValue(),
+                height == null ? 0 : height.intValue(),
+                Boolean.TRUE.equals(call.argument("exact")),
+                textureId == null ? null : videoPlayers.get(textureId.longValue()),
+                new ThumbnailExtractor.FramesCallback() {
+                    @Override
+                    public void onFrames(List<byte[]> frames) {
+                        result.success(frames);
+                    }
 
-        void seekTo(int location) {
-            exoPlayer.seekTo(location);
+                    @Override
+                    public void onCancelled() {
+                        result.error("Cancelled", "The player the frames were requested for was disposed", null);
+                    }
+                });
+    }
+
+    private void registerVideoPlayer(VideoPlayer player, MethodCall call) {
+        videoPlayers.put(player.getTextureId(), player);
+        if (Boolean.TRUE.equals(call.argument("compactEvents"))) {
+            player.useCompactEvents();
+        }
+        if (Boolean.TRUE.equals(call.argument("mediaSession"))) {
+            player.joinMediaSession(mediaSession);
+        }
+        if (memoryPressure.getTier() >= MemoryPressure.TIER_CAP_TRACKS) {
+            player.setVideoSizeCapped(true);
         }
+        decoderBudget.use(player);
+    }
 
-        long getPosition() {
-            return exoPlayer.getCurrentPosition();
+    /**
+     * Parses the arguments of a {@code create} or {@code preload} call.
+     *
+     * @throws IllegalArgumentException if the arguments are invalid.
+     */
+    private VideoPlayerSetup newSetup(MethodCall call) {
+        BufferingProfile bufferingProfile = bufferingProfile(call);
+        if (call.argument("asset") != null) {
+            return new VideoPlayerSetup(
+                    context,
+                    bufferingProfile,
+                    Collections.singletonList(dataSourceKey(call)),
+                    null,
+                    false,
+                    null,
+                    positionUpdateInterval(call));
+        }
+        List<String> dataSources = dataSources(call);
+        // Prefetched data is only reachable through the cache, so such players always use it.
+        boolean useCache = Boolean.TRUE.equals(call.argument("cache"));
+        for (String dataSource : dataSources) {
+            useCache |= prefetches.use(dataSource);
         }
+        return new VideoPlayerSetup(
+                context,
+                bufferingProfile,
+                dataSources,
+                call.argument("headers"),
+                useCache,
+                call.argument("cacheKey"),
+                positionUpdateInterval(call));
+    }
 
-        private void sendInitialized() {
-            if (isInitialized) {
-                Map<String, Object> event = new HashMap<>();
-                event.put("event", "initialized");
-                event.put("duration", exoPlayer.getDuration());
-                if (exoPlayer.getVideoFormat() != null) {
-                    event.put("width", exoPlayer.getVideoFormat().width);
-                    event.put("height", exoPlayer.getVideoFormat().height);
-                }
-                eventSink.success(event);
-            }
+    /** Runs every phase of {@code setup} on the platform thread. */
+    private VideoPlayer createVideoPlayer(TextureRegistry textures, MethodCall call, VideoPlayerSetup setup) {
+        setup.acquirePooledPlayer(playerPool);
+        try {
+            setup.build();
+        } catch (RuntimeException e) {
+            setup.release(playerPool);
+            throw e;
         }
+        VideoPlayer player = setup.attach(playerPool, textures, messenger);
+        setTrackConstraints(player, call);
+        return player;
+    }
 
-        void dispose() {
-            if (isInitialized) {
-                exoPlayer.stop();
-            }
-            textureEntry.release();
-            eventChannel.setStreamHandler(null);
-            if (surface != null) {
-                surface.release();
-            }
-            if (exoPlayer != null) {
-                exoPlayer.release();
+    /**
+     * Builds the player of {@code setup} on the setup executor and answers {@code result} once it
+     * is attached on the platform thread.
+     */
+    private void createVideoPlayerAsync(
+            TextureRegistry textures, MethodCall call, VideoPlayerSetup setup, Result result) {
+        final int setupGeneration = generation;
+        final ExoPlayerPool pool = playerPool;
+        final BinaryMessenger setupMessenger = messenger;
+        setup.acquirePooledPlayer(pool);
+        setupExecutor.execute(
+                () -> {
+                    RuntimeException buildError = null;
+                    try {
+                        setup.build();
+                    } catch (RuntimeException e) {
+                        buildError = e;
+                    }
+                    final RuntimeException error = buildError;
+                    mainHandler.post(
+                            () -> {
+                                if (error != null || setupGeneration != generation) {
+                                    setup.release(pool);
+                                    if (error instanceof IllegalArgumentException) {
+                                        result.error("Invalid arguments", error.getMessage(), null);
+                                    } else if (error != null) {
+                                        result.error("VideoError", "Failed to create player: " + error, null);
+                                    } else {
+                                        result.error("Disposed", "The plugin was reset during create", null);
+                                    }
+                                    return;
+                                }
+                                VideoPlayer player = setup.attach(pool, textures, setupMessenger);
+                                setTrackConstraints(player, call);
+                                registerVideoPlayer(player, call);
+                                Map<String, Object> reply = new HashMap<>();
+                                reply.put("textureId", player.getTextureId());
+                                reply.put("timings", setup.getTimings());
+                                result.success(reply);
+                            });
+                });
+    }
+
+    private void onMethodCall(MethodCall call, Result result, long textureId, VideoPlayer player) {
+        switch (call.method) {
+            case "setLooping":
+                player.setLooping(call.argument("looping"));
+                result.success(null);
+                break;
+            case "setVolume":
+                player.setVolume(call.argument("volume"));
+                result.success(null);
+                break;
+            case "play":
+                decoderBudget.use(player);
+                player.play();
+                result.success(null);
+                break;
+            case "pause":
+                player.pause();
+                result.success(null);
+                break;
+            case "seekTo": {
+                int location = ((Number) Objects.requireNonNull(call.argument("location"))).intValue();
+                SeekParameters seekParameters;
+                try {
+                    seekParameters = VideoPlayer.seekParameters(call.argument("mode"));
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid arguments", e.getMessage(), null);
+                    return;
+                }
+                decoderBudget.use(player);
+                player.seekTo(location, seekParameters);
+                result.success(null);
+                break;
             }
+            case "setPlaybackSpeed":
+                double speed = call.argument("speed");
+                player.setPlaybackSpeed(speed);
+                result.success(null);
+                break;
+            case "getPlaybackSpeed":
+                result.success(player.getPlaybackSpeed());
+                break;
+            case "position":
+                result.success(player.getPosition());
+                break;
+            case "setTrackConstraints":
+                setTrackConstraints(player, call);
+                result.success(null);
+                break;
+            case "getStats":
+                result.success(player.getStats());
+                break;
+            case "setStatsUpdateInterval":
+                player.setStatsUpdateInterval(
+                        ((Number) Objects.requireNonNull(call.argument("intervalMs"))).longValue());
+                result.success(null);
+                break;
+            case "getEventSinkStats":
+                result.success(player.getEventSinkStats());
+                break;
+            case "setPositionUpdateInterval":
+                player.setPositionUpdateInterval(
+                        ((Number) Objects.requireNonNull(call.argument("intervalMs"))).longValue());
+                result.success(null);
+                break;
+            case "setVideoEnabled":
+                player.setVideoEnabled(Boolean.TRUE.equals(call.argument("enabled")));
+                result.success(null);
+                break;
+            case "setVisibility":
+                player.setVisible(Boolean.TRUE.equals(call.argument("visible")));
+                result.success(null);
+                break;
+            case "addToQueue":
+                player.addToQueue(
+                        Objects.requireNonNull(call.argument("uri")), call.argument("index"));
+                result.success(null);
+                break;
+            case "removeFromQueue":
+                player.removeFromQueue(((Number) Objects.requireNonNull(call.argument("index"))).intValue());
+                result.success(null);
+                break;
+            case "moveQueueItem":
+                player.moveQueueItem(
+                        ((Number) Objects.requireNonNull(call.argument("from"))).intValue(),
+                        ((Number) Objects.requireNonNull(call.argument("to"))).intValue());
+                result.success(null);
+                break;
+            case "skipToQueueItem":
+                decoderBudget.use(player);
+                player.skipToQueueItem(((Number) Objects.requireNonNull(call.argument("index"))).intValue());
+                result.success(null);
+                break;
+            case "dispose":
+                decoderBudget.remove(player);
+                thumbnails.cancel(player);
+                player.dispose();
+                videoPlayers.remove(textureId);
+                result.success(null);
+                break;
+            default:
+                result.notImplemented();
+                break;
         }
     }
 }
@@ -0,0 +1,124 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps a bounded set of prepared-but-paused {@link VideoPlayer}s keyed by data source.
+ *
+ * <p>A later {@code create} for the same data source takes the warm instance instead of building a
+ * new one, provided it asks for the same options the player was built with. When the set is full,
+ * a new preload only displaces the lowest priority entry (the oldest one among equal priorities) if
+ * it has a strictly higher priority.
+ *
+ * <p>This class is not thread-safe. All calls must be done on the platform thread.
+ */
+final class VideoPlayerPreloader {
+  static final int DEFAULT_MAX_PRELOADS = 2;
+
+  interface PlayerFactory {
+    VideoPlayer create();
+  }
+
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+  private int maxPreloads = DEFAULT_MAX_PRELOADS;
+
+  /**
+   * Prepares a player for {@code key} built with {@code options}, unless such a player is already
+   * waiting. A waiting player built with other options is replaced.
+   *
+   * @return whether a prepared player for {@code key} is available after this call.
+   */
+  boolean preload(String key, Object options, int priority, PlayerFactory factory) {
+    Entry existing = entries.get(key);
+    if (existing != null && existing.options.equals(options)) {
+      existing.priority = priority;
+      return true;
+    }
+    if (existing != null) {
+      entries.remove(key);
+      existing.player.dispose();
+    }
+    if (maxPreloads <= 0) {
+      return false;
+    }
+    if (entries.size() >= maxPreloads) {
+      Entry lowest = lowestPriority();
+      if (lowest.priority >= priority) {
+        return false;
+      }
+      entries.remove(lowest.key);
+      lowest.player.dispose();
+    }
+    entries.put(key, new Entry(key, options, priority, factory.create()));
+    return true;
+  }
+
+  /**
+   * Removes and returns the prepared player for {@code key}, if any was built with {@code
+   * options}. A player built with other options stays where it is.
+   */
+  @Nullable
+  VideoPlayer take(String key, Object options) {
+    Entry entry = entries.get(key);
+    if (entry == null || !entry.options.equals(options)) {
+      return null;
+    }
+    entries.remove(key);
+    return entry.player;
+  }
+
+  boolean cancel(String key) {
+    Entry entry = entries.remove(key);
+    if (entry == null) {
+      return false;
+    }
+    entry.player.dispose();
+    return true;
+  }
+
+  void setMaxPreloads(int maxPreloads) {
+    this.maxPreloads = Math.max(0, maxPreloads);
+    while (entries.size() > this.maxPreloads) {
+      Entry lowest = lowestPriority();
+      entries.remove(lowest.key);
+      lowest.player.dispose();
+    }
+  }
+
+  void clear() {
+    for (Entry entry : new ArrayList<>(entries.values())) {
+      entry.player.dispose();
+    }
+    entries.clear();
+  }
+
+  private Entry lowestPriority() {
+    Entry lowest = null;
+    for (Entry entry : entries.values()) {
+      if (lowest == null || entry.priority < lowest.priority) {
+        lowest = entry;
+      }
+    }
+    return lowest;
+  }
+
+  private static final class Entry {
+    final String key;
+    final Object options;
+    final VideoPlayer player;
+    int priority;
+
+    Entry(String key, Object options, int priority, VideoPlayer player) {
+      this.key = key;
+      this.options = options;
+      this.priority = priority;
+      this.player = player;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import android.content.Context;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.source.MediaSource;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.view.TextureRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates one {@link VideoPlayer} in phases, so that the expensive ones can run off the platform
+ * thread.
+ *
+ * <p>{@link #acquirePooledPlayer} and {@link #attach} must be called on the platform thread. {@link
+ * #build} does the heavy lifting (building the {@code SimpleExoPlayer} when the pool has none,
+ * opening the cache and building the media sources) and may run on any thread in between. Each
+ * phase is timed and reported by {@link #getTimings()}.
+ */
+final class VideoPlayerSetup {
+  private final Context context;
+  private final BufferingProfile bufferingProfile;
+  private final List<String> dataSources;
+  @Nullable private final Map<String, String> headers;
+  private final boolean useCache;
+  @Nullable private final String cacheKey;
+  private final long positionUpdateIntervalMs;
+
+  @Nullable private ExoPlayerPool.PooledPlayer pooledPlayer;
+  private boolean fromPool;
+  private MediaSourceBuilder mediaSourceBuilder;
+  private List<MediaSource> mediaSources;
+
+  private final long requestedAtNs = System.nanoTime();
+  private long buildStartedAtNs;
+  private long buildPlayerNs;
+  private long buildMediaSourcesNs;
+  private long builtAtNs;
+  private long attachStartedAtNs;
+  private long attachedAtNs;
+
+  VideoPlayerSetup(
+      Context context,
+      BufferingProfile bufferingProfile,
+      List<String> dataSources,
+      @Nullable Map<String, String> headers,
+      boolean useCache,
+      @Nullable String cacheKey,
+      long positionUpdateIntervalMs) {
+    this.context = context;
+    this.bufferingProfile = bufferingProfile;
+    this.dataSources = dataSources;
+    this.headers = headers;
+    this.useCache = useCache;
+    this.cacheKey = cacheKey;
+    this.positionUpdateIntervalMs = positionUpdateIntervalMs;
+  }
+
+  /** Takes a parked player from {@code pool} if it has one for this buffering profile. */
+  void acquirePooledPlayer(ExoPlayerPool pool) {
+    pooledPlayer = pool.acquireIdle(bufferingProfile);
+    fromPool = pooledPlayer != null;
+  }
+
+  /**
+   * Builds everything that does not need the platform thread.
+   *
+   * @throws IllegalArgumentException if a data source cannot be played.
+   */
+  void build() {
+    buildStartedAtNs = System.nanoTime();
+    if (pooledPlayer == null) {
+      pooledPlayer = ExoPlayerPool.build(context, bufferingProfile);
+    }
+    long playerBuiltAtNs = System.nanoTime();
+    buildPlayerNs = playerBuiltAtNs - buildStartedAtNs;
+
+    VideoPlayerCache cache = useCache ? VideoPlayerCache.getInstance(context) : null;
+    mediaSourceBuilder = new MediaSourceBuilder(context, headers, cache);
+    mediaSources = new ArrayList<>(dataSources.size());
+    for (String dataSource : dataSources) {
+      mediaSources.add(
+          mediaSourceBuilder.build(dataSource, dataSources.size() == 1 ? cacheKey : null));
+    }
+    builtAtNs = System.nanoTime();
+    buildMediaSourcesNs = builtAtNs - playerBuiltAtNs;
+  }
+
+  /** Creates the texture and event channel and starts preparing the built player. */
+  VideoPlayer attach(ExoPlayerPool pool, TextureRegistry textures, BinaryMessenger messenger) {
+    attachStartedAtNs = System.nanoTime();
+    TextureRegistry.SurfaceTextureEntry textureEntry = textures.createSurfaceTexture();
+    EventChannel eventChannel =
+        new EventChannel(messenger, "flutter.io/videoPlayer/videoEvents" + textureEntry.id());
+    VideoPlayer player =
+        new VideoPlayer(
+            pool,
+            pooledPlayer,
+            mediaSourceBuilder,
+            mediaSources,
+            eventChannel,
+            textureEntry,
+            positionUpdateIntervalMs);
+    pooledPlayer = null;
+    attachedAtNs = System.nanoTime();
+    return player;
+  }
+
+  /**
+   * Returns the player of a setup that failed or was abandoned before {@link #attach} to {@code
+   * pool}, the way {@link VideoPlayer#dispose} does.
+   */
+  void release(ExoPlayerPool pool) {
+    if (pooledPlayer != null) {
+      pool.release(pooledPlayer);
+      pooledPlayer = null;
+    }
+  }
+
+  /** Returns how long each phase took, in microseconds. */
+  Map<String, Object> getTimings() {
+    Map<String, Object> timings = new HashMap<>();
+    timings.put("queueUs", micros(buildStartedAtNs - requestedAtNs));
+    timings.put("buildPlayerUs", micros(buildPlayerNs));
+    timings.put("buildMediaSourcesUs", micros(buildMediaSourcesNs));
+    timings.put("handoffUs", micros(attachStartedAtNs - builtAtNs));
+    timings.put("attachUs", micros(attachedAtNs - attachStartedAtNs));
+    timings.put("totalUs", micros(attachedAtNs - requestedAtNs));
+    timings.put("fromPool", fromPool);
+    return timings;
+  }
+
+  private static long micros(long nanos) {
+    return nanos / 1000;
+  }
+}
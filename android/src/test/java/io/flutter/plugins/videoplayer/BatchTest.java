@@ -0,0 +1,81 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/** A failing command of a batch is reported in its slot and does not stop the others. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class BatchTest {
+  private final MediaServer server = new MediaServer();
+  private final PluginHarness harness = new PluginHarness();
+  private long textureId;
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    harness.attach();
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("uri", server.progressiveUri());
+    PluginHarness.Reply reply = harness.call("create", arguments);
+    assertNull(reply.errorMessage, reply.errorCode);
+    textureId = ((Number) ((Map<?, ?>) reply.value).get("textureId")).longValue();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    harness.detach();
+    server.shutdown();
+  }
+
+  @Test
+  public void malformedCommandsFailInTheirSlot() {
+    List<Map<String, Object>> commands = new ArrayList<>();
+    commands.add(command("setVolume", "volume", 0.5));
+    // Missing location.
+    commands.add(command("seekTo", null, null));
+    // Mistyped volume.
+    commands.add(command("setVolume", "volume", "loud"));
+    commands.add(command("setLooping", "looping", true));
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("commands", commands);
+
+    PluginHarness.Reply reply = harness.call("batch", arguments);
+
+    assertNull(reply.errorMessage, reply.errorCode);
+    List<?> results = (List<?>) reply.value;
+    assertEquals(4, results.size());
+    assertFalse(((Map<?, ?>) results.get(0)).containsKey("error"));
+    assertEquals("Invalid arguments", ((Map<?, ?>) results.get(1)).get("error"));
+    assertEquals("Invalid arguments", ((Map<?, ?>) results.get(2)).get("error"));
+    assertFalse(((Map<?, ?>) results.get(3)).containsKey("error"));
+  }
+
+  private Map<String, Object> command(String method, String argument, Object value) {
+    Map<String, Object> command = new HashMap<>();
+    command.put("method", method);
+    command.put("textureId", textureId);
+    if (argument != null) {
+      command.put(argument, value);
+    }
+    return command;
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * A minimal microbenchmark runner for the JVM tests.
+ *
+ * <p>Each benchmark runs its operation for a tenth of its iterations to warm up, then measures the
+ * time and, where the JVM can report it, the bytes allocated by the calling thread. The numbers are
+ * only meant for comparing runs on the same machine, before and after a change.
+ *
+ * <p>The iteration count is taken from the {@code videoPlayer.benchmarkIterations} system property.
+ */
+final class Benchmark {
+  static final int ITERATIONS = Integer.getInteger("videoPlayer.benchmarkIterations", 20_000);
+
+  interface Operation {
+    void run(int iteration) throws Exception;
+  }
+
+  static final class Result {
+    final String name;
+    final int iterations;
+    final double nanosPerOp;
+    /** Bytes allocated per operation, or -1 if the JVM cannot tell. */
+    final double bytesPerOp;
+
+    Result(String name, int iterations, double nanosPerOp, double bytesPerOp) {
+      this.name = name;
+      this.iterations = iterations;
+      this.nanosPerOp = nanosPerOp;
+      this.bytesPerOp = bytesPerOp;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.US,
+          "%-48s %10.1f ns/op %10.1f B/op (%d ops)",
+          name,
+          nanosPerOp,
+          bytesPerOp,
+          iterations);
+    }
+  }
+
+  private Benchmark() {}
+
+  static Result run(String name, Operation operation) throws Exception {
+    return run(name, ITERATIONS, operation);
+  }
+
+  static Result run(String name, int iterations, Operation operation) throws Exception {
+    for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+      operation.run(i);
+    }
+    long startBytes = allocatedBytes();
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      operation.run(i);
+    }
+    long nanos = System.nanoTime() - startNanos;
+    long bytes = allocatedBytes() - startBytes;
+    Result result =
+        new Result(
+            name,
+            iterations,
+            (double) nanos / iterations,
+            startBytes < 0 ? -1 : (double) bytes / iterations);
+    System.out.println(result);
+    return result;
+  }
+
+  /** Bytes allocated so far by the calling thread, or -1 if the JVM cannot tell. */
+  static long allocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+    if (!allocationBean.isThreadAllocatedMemorySupported()
+        || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
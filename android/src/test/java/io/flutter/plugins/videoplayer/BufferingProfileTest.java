@@ -0,0 +1,100 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class BufferingProfileTest {
+  @Test
+  public void resolvesPresetsByName() {
+    assertSame(BufferingProfile.DEFAULT, BufferingProfile.fromArguments(null, null));
+    assertSame(BufferingProfile.DEFAULT, BufferingProfile.fromArguments("default", null));
+    assertSame(BufferingProfile.FAST_START, BufferingProfile.fromArguments("fastStart", null));
+    assertSame(BufferingProfile.LOW_MEMORY, BufferingProfile.fromArguments("lowMemory", null));
+    assertSame(
+        BufferingProfile.LONG_BUFFER,
+        BufferingProfile.fromArguments("longBuffer", Collections.emptyMap()));
+  }
+
+  @Test
+  public void presetsHaveDocumentedValues() {
+    assertEquals(
+        DefaultLoadControl.DEFAULT_MIN_BUFFER_MS
+            + "/"
+            + DefaultLoadControl.DEFAULT_MAX_BUFFER_MS
+            + "/"
+            + DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS
+            + "/"
+            + DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS
+            + "/"
+            + C.LENGTH_UNSET
+            + "/"
+            + DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS,
+        BufferingProfile.DEFAULT.key());
+    assertEquals("15000/30000/1000/2000/-1/0", BufferingProfile.FAST_START.key());
+    assertEquals("5000/10000/1000/2000/2097152/0", BufferingProfile.LOW_MEMORY.key());
+    assertEquals("60000/120000/2500/5000/-1/30000", BufferingProfile.LONG_BUFFER.key());
+  }
+
+  @Test
+  public void overridesReplacePresetValues() {
+    Map<String, Object> overrides = new HashMap<>();
+    overrides.put("minBufferMs", 20_000);
+    overrides.put("backBufferMs", 10_000L);
+
+    BufferingProfile profile = BufferingProfile.fromArguments("fastStart", overrides);
+
+    assertEquals("20000/30000/1000/2000/-1/10000", profile.key());
+  }
+
+  @Test
+  public void rejectsUnknownName() {
+    assertRejected("slow", null);
+  }
+
+  @Test
+  public void rejectsInconsistentDurations() {
+    assertRejected("default", overrides("bufferForPlaybackMs", 60_000));
+    assertRejected("default", overrides("bufferForPlaybackAfterRebufferMs", 60_000));
+    assertRejected("fastStart", overrides("maxBufferMs", 10_000));
+    assertRejected("fastStart", overrides("minBufferMs", 500));
+  }
+
+  @Test
+  public void rejectsNegativeDurations() {
+    assertRejected("default", overrides("bufferForPlaybackMs", -1));
+    assertRejected("default", overrides("bufferForPlaybackAfterRebufferMs", -1));
+    assertRejected("longBuffer", overrides("backBufferMs", -1));
+  }
+
+  @Test
+  public void dropsOnlyTheBackBuffer() {
+    BufferingProfile profile = BufferingProfile.LONG_BUFFER.withoutBackBuffer();
+
+    assertEquals("60000/120000/2500/5000/-1/0", profile.key());
+    assertSame(BufferingProfile.FAST_START, BufferingProfile.FAST_START.withoutBackBuffer());
+  }
+
+  private static Map<String, Object> overrides(String key, int value) {
+    return Collections.singletonMap(key, value);
+  }
+
+  private static void assertRejected(String name, Map<String, Object> overrides) {
+    try {
+      BufferingProfile.fromArguments(name, overrides);
+      fail("Expected " + name + " with " + overrides + " to be rejected");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
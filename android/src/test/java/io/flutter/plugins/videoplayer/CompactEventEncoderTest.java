@@ -0,0 +1,91 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import org.junit.Test;
+
+public class CompactEventEncoderTest {
+  private final CompactEventEncoder encoder = new CompactEventEncoder();
+
+  @Test
+  public void encodesInitialized() {
+    byte[] event = encoder.encodeInitialized(0x0102030405060708L, 1920, -1);
+
+    assertEquals(17, event.length);
+    ByteBuffer fields = fields(event);
+    assertEquals(CompactEventEncoder.INITIALIZED, fields.get());
+    assertEquals(0x0102030405060708L, fields.getLong());
+    assertEquals(1920, fields.getInt());
+    assertEquals(-1, fields.getInt());
+    // Least significant byte first.
+    assertEquals(0x08, event[1]);
+    assertEquals("initialized", CompactEventEncoder.typeName(event));
+  }
+
+  @Test
+  public void encodesPosition() {
+    byte[] event = encoder.encode(CompactEventEncoder.POSITION, 4_000L, 12_345_678_901L);
+
+    assertEquals(17, event.length);
+    ByteBuffer fields = fields(event);
+    assertEquals(CompactEventEncoder.POSITION, fields.get());
+    assertEquals(4_000L, fields.getLong());
+    assertEquals(12_345_678_901L, fields.getLong());
+    assertEquals("position", CompactEventEncoder.typeName(event));
+  }
+
+  @Test
+  public void encodesSeekCompleted() {
+    byte[] event = encoder.encode(CompactEventEncoder.SEEK_COMPLETED, 65_536L);
+
+    assertEquals(9, event.length);
+    ByteBuffer fields = fields(event);
+    assertEquals(CompactEventEncoder.SEEK_COMPLETED, fields.get());
+    assertEquals(65_536L, fields.getLong());
+    assertEquals("seekCompleted", CompactEventEncoder.typeName(event));
+  }
+
+  @Test
+  public void encodesFieldlessEvents() {
+    byte[] types = {
+      CompactEventEncoder.BUFFERING_START,
+      CompactEventEncoder.BUFFERING_END,
+      CompactEventEncoder.PLAYED,
+      CompactEventEncoder.PAUSED
+    };
+    String[] names = {"bufferingStart", "bufferingEnd", "played", "paused"};
+    for (int i = 0; i < types.length; i++) {
+      byte[] event = encoder.encode(types[i]);
+      assertArrayEquals(new byte[] {types[i]}, event);
+      assertEquals(names[i], CompactEventEncoder.typeName(event));
+    }
+  }
+
+  @Test
+  public void eventsDoNotShareStorage() {
+    byte[] first = encoder.encode(CompactEventEncoder.POSITION, 1, 2);
+    encoder.encode(CompactEventEncoder.POSITION, 3, 4);
+
+    assertEquals(1L, fields(first).getLong(1));
+  }
+
+  @Test
+  public void typeNameRejectsOtherEvents() {
+    assertNull(CompactEventEncoder.typeName(new HashMap<>()));
+    assertNull(CompactEventEncoder.typeName(new byte[0]));
+    assertNull(CompactEventEncoder.typeName(new byte[] {42}));
+  }
+
+  private static ByteBuffer fields(byte[] event) {
+    return ByteBuffer.wrap(event).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertNotNull;
+
+import androidx.test.core.app.ApplicationProvider;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/** What it costs to build the network data sources and media sources of a player. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class DataSourceFactoryBenchmark {
+  private static final Map<String, String> HEADERS = new HashMap<>();
+
+  static {
+    HEADERS.put("Authorization", "Bearer token");
+    HEADERS.put("Referer", "https://example.com/");
+    HEADERS.put("X-Client", "video_player_header");
+  }
+
+  @After
+  public void resetHttpStack() {
+    VideoPlayerHttpStack.getInstance().configure(false, null, null, 0);
+  }
+
+  @Test
+  public void defaultFactory() throws Exception {
+    Benchmark.run(
+        "VideoPlayerHttpDataSourceFactory, new",
+        i ->
+            new VideoPlayerHttpDataSourceFactory(
+                VideoPlayerHttpStack.USER_AGENT,
+                null,
+                DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS,
+                true,
+                HEADERS));
+
+    DataSource.Factory factory =
+        new VideoPlayerHttpDataSourceFactory(
+            VideoPlayerHttpStack.USER_AGENT,
+            null,
+            DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+            DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS,
+            true,
+            HEADERS);
+    Benchmark.run(
+        "VideoPlayerHttpDataSourceFactory, createDataSource",
+        i -> assertNotNull(factory.createDataSource()));
+  }
+
+  @Test
+  public void httpStack() throws Exception {
+    VideoPlayerHttpStack stack = VideoPlayerHttpStack.getInstance();
+
+    stack.configure(false, null, null, 0);
+    Benchmark.run(
+        "VideoPlayerHttpStack, per-player client",
+        i -> assertNotNull(stack.buildDataSourceFactory(HEADERS).createDataSource()));
+
+    stack.configure(true, null, null, 0);
+    Benchmark.run(
+        "VideoPlayerHttpStack, shared client",
+        i -> assertNotNull(stack.buildDataSourceFactory(HEADERS).createDataSource()));
+
+    stack.configure(true, null, null, 4);
+    Benchmark.run(
+        "VideoPlayerHttpStack, shared client, host limit",
+        i -> assertNotNull(stack.buildDataSourceFactory(HEADERS).createDataSource()));
+  }
+
+  @Test
+  public void mediaSources() throws Exception {
+    MediaSourceBuilder builder =
+        new MediaSourceBuilder(ApplicationProvider.getApplicationContext(), HEADERS, null);
+
+    Benchmark.run(
+        "MediaSourceBuilder, progressive",
+        i -> assertNotNull(builder.build("https://example.com/video.mp4", null)));
+    Benchmark.run(
+        "MediaSourceBuilder, HLS",
+        i -> assertNotNull(builder.build("https://example.com/video.m3u8", null)));
+    Benchmark.run(
+        "MediaSourceBuilder, DASH",
+        i -> assertNotNull(builder.build("https://example.com/video.mpd", null)));
+  }
+}
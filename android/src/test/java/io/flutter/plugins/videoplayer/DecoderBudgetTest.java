@@ -0,0 +1,93 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class DecoderBudgetTest {
+  private final DecoderBudget budget = new DecoderBudget();
+
+  @Test
+  public void hibernatesOffscreenThenPausedPlayers() {
+    VideoPlayer playing = player(true, true);
+    VideoPlayer paused = player(true, false);
+    VideoPlayer offscreen = player(false, true);
+    budget.use(playing);
+    budget.use(paused);
+    budget.use(offscreen);
+
+    budget.configure(1);
+
+    InOrder order = inOrder(offscreen, paused);
+    order.verify(offscreen).hibernate();
+    order.verify(paused).hibernate();
+    verify(playing, never()).hibernate();
+  }
+
+  @Test
+  public void hibernatesLeastRecentlyUsedFirst() {
+    VideoPlayer older = player(false, false);
+    VideoPlayer newer = player(false, false);
+    budget.use(older);
+    budget.use(newer);
+    // Using it again makes it the most recently used one.
+    budget.use(older);
+
+    budget.configure(1);
+
+    verify(newer).hibernate();
+    verify(older, never()).hibernate();
+  }
+
+  @Test
+  public void neverHibernatesVisiblePlayingPlayers() {
+    budget.configure(1);
+    VideoPlayer first = player(true, true);
+    VideoPlayer second = player(true, true);
+
+    budget.use(first);
+    budget.use(second);
+
+    verify(first, never()).hibernate();
+    verify(second, never()).hibernate();
+  }
+
+  @Test
+  public void keepsThePlayerBeingUsed() {
+    budget.configure(1);
+    VideoPlayer first = player(true, false);
+    VideoPlayer second = player(true, false);
+
+    budget.use(first);
+    budget.use(second);
+
+    verify(first).hibernate();
+    verify(second, never()).hibernate();
+  }
+
+  @Test
+  public void restoresHibernatedPlayerOnUse() {
+    VideoPlayer player = player(true, true);
+    when(player.isHibernated()).thenReturn(true);
+
+    budget.use(player);
+
+    verify(player).restore();
+  }
+
+  private static VideoPlayer player(boolean visible, boolean playWhenReady) {
+    VideoPlayer player = mock(VideoPlayer.class);
+    when(player.isVisible()).thenReturn(visible);
+    when(player.isPlayWhenReady()).thenReturn(playWhenReady);
+    return player;
+  }
+}
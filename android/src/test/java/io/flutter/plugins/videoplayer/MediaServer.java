@@ -0,0 +1,159 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * A local HTTP server with a progressive and an HLS fixture, standing in for a CDN.
+ *
+ * <p>Both fixtures are silent AAC in ADTS frames, generated rather than checked in: {@code
+ * /progressive.aac} is one file and {@code /hls/index.m3u8} is a media playlist of packed audio
+ * segments. Range requests are honoured and query strings are ignored, so several URIs can serve
+ * the same fixture.
+ */
+final class MediaServer {
+  static final int SEGMENT_COUNT = 5;
+  static final int SEGMENT_DURATION_S = 2;
+
+  private static final int SAMPLE_RATE_INDEX_44100 = 4;
+  private static final int FRAMES_PER_SECOND = 44100 / 1024;
+  private static final int FRAME_PAYLOAD_SIZE = 256;
+
+  private final MockWebServer server = new MockWebServer();
+  private final byte[] progressive = adts(SEGMENT_COUNT * SEGMENT_DURATION_S * FRAMES_PER_SECOND);
+  private final byte[] segment = adts(SEGMENT_DURATION_S * FRAMES_PER_SECOND);
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private volatile long bytesPer100Ms;
+
+  void start() throws IOException {
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            requestCount.incrementAndGet();
+            return respond(request);
+          }
+        });
+    server.start();
+  }
+
+  void shutdown() throws IOException {
+    server.shutdown();
+  }
+
+  String progressiveUri() {
+    return server.url("/progressive.aac").toString();
+  }
+
+  int progressiveLength() {
+    return progressive.length;
+  }
+
+  String hlsUri() {
+    return server.url("/hls/index.m3u8").toString();
+  }
+
+  int getRequestCount() {
+    return requestCount.get();
+  }
+
+  /** Slows down every later response body to {@code bytesPer100Ms}, or lifts the limit with 0. */
+  void throttle(long bytesPer100Ms) {
+    this.bytesPer100Ms = bytesPer100Ms;
+  }
+
+  private MockResponse respond(RecordedRequest request) {
+    String path = request.getRequestUrl().encodedPath();
+    MockResponse response = respond(path, request);
+    long bytesPer100Ms = this.bytesPer100Ms;
+    if (bytesPer100Ms > 0) {
+      response.throttleBody(bytesPer100Ms, 100, TimeUnit.MILLISECONDS);
+    }
+    return response;
+  }
+
+  private MockResponse respond(String path, RecordedRequest request) {
+    if (path.equals("/progressive.aac")) {
+      return body(request, progressive, "audio/aac");
+    }
+    if (path.equals("/hls/index.m3u8")) {
+      return body(request, playlist(), "application/vnd.apple.mpegurl");
+    }
+    if (path.startsWith("/hls/segment")) {
+      return body(request, segment, "audio/aac");
+    }
+    return new MockResponse().setResponseCode(404);
+  }
+
+  private static MockResponse body(RecordedRequest request, byte[] content, String contentType) {
+    MockResponse response = new MockResponse().setHeader("Content-Type", contentType);
+    String range = request.getHeader("Range");
+    if (range == null || !range.startsWith("bytes=")) {
+      return response.setBody(new Buffer().write(content));
+    }
+    String[] bounds = range.substring("bytes=".length()).split("-", -1);
+    int start = Integer.parseInt(bounds[0]);
+    int end = bounds[1].isEmpty() ? content.length - 1 : Integer.parseInt(bounds[1]);
+    end = Math.min(end, content.length - 1);
+    if (start > end) {
+      return new MockResponse().setResponseCode(416);
+    }
+    return response
+        .setResponseCode(206)
+        .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length)
+        .setBody(new Buffer().write(content, start, end - start + 1));
+  }
+
+  private static byte[] playlist() {
+    StringBuilder playlist = new StringBuilder();
+    playlist
+        .append("#EXTM3U\n")
+        .append("#EXT-X-VERSION:3\n")
+        .append("#EXT-X-TARGETDURATION:")
+        .append(SEGMENT_DURATION_S)
+        .append('\n')
+        .append("#EXT-X-MEDIA-SEQUENCE:0\n");
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      playlist
+          .append("#EXTINF:")
+          .append(SEGMENT_DURATION_S)
+          .append(".0,\n")
+          .append("segment")
+          .append(i)
+          .append(".aac\n");
+    }
+    playlist.append("#EXT-X-ENDLIST\n");
+    return playlist.toString().getBytes();
+  }
+
+  /** Returns {@code frameCount} ADTS frames of AAC LC, stereo, 44.1kHz with zeroed payloads. */
+  private static byte[] adts(int frameCount) {
+    int frameLength = 7 + FRAME_PAYLOAD_SIZE;
+    byte[] data = new byte[frameCount * frameLength];
+    for (int i = 0; i < frameCount; i++) {
+      int offset = i * frameLength;
+      int channelConfig = 2;
+      data[offset] = (byte) 0xFF;
+      // MPEG-4, layer 0, no CRC.
+      data[offset + 1] = (byte) 0xF1;
+      // AAC LC, sample rate index, channel configuration high bit.
+      data[offset + 2] = (byte) ((1 << 6) | (SAMPLE_RATE_INDEX_44100 << 2) | (channelConfig >> 2));
+      data[offset + 3] = (byte) (((channelConfig & 3) << 6) | ((frameLength >> 11) & 3));
+      data[offset + 4] = (byte) ((frameLength >> 3) & 0xFF);
+      // Frame length low bits, then a buffer fullness of 0x7FF (variable bitrate).
+      data[offset + 5] = (byte) (((frameLength & 7) << 5) | 0x1F);
+      data[offset + 6] = (byte) 0xFC;
+    }
+    return data;
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class MemoryPressureTest {
+  /** Records every notification as "tier:level", or "relieved". */
+  private static final class RecordingListener implements MemoryPressure.Listener {
+    final List<String> calls = new ArrayList<>();
+
+    @Override
+    public void onMemoryPressure(int tier, int level) {
+      calls.add(tier + ":" + level);
+    }
+
+    @Override
+    public void onMemoryPressureRelieved() {
+      calls.add("relieved");
+    }
+  }
+
+  private final RecordingListener listener = new RecordingListener();
+  private final MemoryPressure memoryPressure = new MemoryPressure(listener);
+
+  @Test
+  public void mapsTrimLevelsToTiers() {
+    assertEquals(MemoryPressure.TIER_NONE, MemoryPressure.tierFor(TRIM_MEMORY_UI_HIDDEN));
+    assertEquals(
+        MemoryPressure.TIER_TRIM_CACHES, MemoryPressure.tierFor(TRIM_MEMORY_RUNNING_MODERATE));
+    assertEquals(MemoryPressure.TIER_CAP_TRACKS, MemoryPressure.tierFor(TRIM_MEMORY_RUNNING_LOW));
+    assertEquals(
+        MemoryPressure.TIER_RELEASE_PAUSED, MemoryPressure.tierFor(TRIM_MEMORY_RUNNING_CRITICAL));
+    assertEquals(
+        MemoryPressure.TIER_DROP_BACK_BUFFER, MemoryPressure.tierFor(TRIM_MEMORY_BACKGROUND));
+    assertEquals(MemoryPressure.TIER_RELEASE_PAUSED, MemoryPressure.tierFor(TRIM_MEMORY_MODERATE));
+    assertEquals(MemoryPressure.TIER_RELEASE_PAUSED, MemoryPressure.tierFor(TRIM_MEMORY_COMPLETE));
+  }
+
+  @Test
+  public void ignoresHiddenUi() {
+    memoryPressure.onTrimMemory(TRIM_MEMORY_UI_HIDDEN);
+
+    assertEquals(MemoryPressure.TIER_NONE, memoryPressure.getTier());
+    assertEquals(0, listener.calls.size());
+  }
+
+  @Test
+  public void holdsHighestTierForHoldPeriod() {
+    memoryPressure.onTrimMemory(TRIM_MEMORY_RUNNING_LOW);
+    memoryPressure.onTrimMemory(TRIM_MEMORY_RUNNING_MODERATE);
+
+    // A lower signal is passed on but does not lower the tier.
+    assertEquals(MemoryPressure.TIER_CAP_TRACKS, memoryPressure.getTier());
+    assertEquals(
+        Arrays.asList(
+            MemoryPressure.TIER_CAP_TRACKS + ":" + TRIM_MEMORY_RUNNING_LOW,
+            MemoryPressure.TIER_TRIM_CACHES + ":" + TRIM_MEMORY_RUNNING_MODERATE),
+        listener.calls);
+
+    idleFor(MemoryPressure.DEFAULT_HOLD_MS - 1);
+    assertEquals(MemoryPressure.TIER_CAP_TRACKS, memoryPressure.getTier());
+
+    idleFor(1);
+    assertEquals(MemoryPressure.TIER_NONE, memoryPressure.getTier());
+    assertEquals("relieved", listener.calls.get(listener.calls.size() - 1));
+  }
+
+  @Test
+  public void newSignalRestartsHold() {
+    memoryPressure.onTrimMemory(TRIM_MEMORY_BACKGROUND);
+    idleFor(MemoryPressure.DEFAULT_HOLD_MS / 2);
+    memoryPressure.onTrimMemory(TRIM_MEMORY_BACKGROUND);
+
+    idleFor(MemoryPressure.DEFAULT_HOLD_MS - 1);
+    assertEquals(MemoryPressure.TIER_DROP_BACK_BUFFER, memoryPressure.getTier());
+
+    idleFor(1);
+    assertEquals(MemoryPressure.TIER_NONE, memoryPressure.getTier());
+  }
+
+  @Test
+  public void lowMemoryIsTheHighestTier() {
+    memoryPressure.onLowMemory();
+
+    assertEquals(MemoryPressure.TIER_RELEASE_PAUSED, memoryPressure.getTier());
+  }
+
+  @Test
+  public void releaseStopsHoldWithoutNotifying() {
+    memoryPressure.onTrimMemory(TRIM_MEMORY_RUNNING_LOW);
+
+    memoryPressure.release();
+    idleFor(MemoryPressure.DEFAULT_HOLD_MS);
+
+    assertEquals(MemoryPressure.TIER_NONE, memoryPressure.getTier());
+    assertEquals(1, listener.calls.size());
+  }
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,109 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/** What {@link VideoPlayerPlugin#onMethodCall} costs per call, apart from the work it triggers. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class MethodDispatchBenchmark {
+  private final MediaServer server = new MediaServer();
+  private final PluginHarness harness = new PluginHarness();
+  private long textureId;
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    harness.attach();
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("uri", server.progressiveUri());
+    PluginHarness.Reply reply = harness.call("create", arguments);
+    assertNull(reply.errorMessage, reply.errorCode);
+    textureId = ((Number) ((Map<?, ?>) reply.value).get("textureId")).longValue();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    harness.detach();
+    server.shutdown();
+  }
+
+  @Test
+  public void pluginMethod() throws Exception {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("maxPreloads", 2);
+
+    Benchmark.run(
+        "onMethodCall setMaxPreloads",
+        i -> assertSucceeds(harness.invoke("setMaxPreloads", arguments)));
+  }
+
+  @Test
+  public void playerMethods() throws Exception {
+    Map<String, Object> volume = new HashMap<>();
+    volume.put("textureId", textureId);
+    volume.put("volume", 0.5);
+    Benchmark.run(
+        "onMethodCall setVolume", i -> assertSucceeds(harness.invoke("setVolume", volume)));
+
+    Map<String, Object> position = new HashMap<>();
+    position.put("textureId", textureId);
+    Benchmark.run(
+        "onMethodCall position", i -> assertSucceeds(harness.invoke("position", position)));
+
+    Map<String, Object> unknown = new HashMap<>();
+    unknown.put("textureId", textureId + 1000);
+    PluginHarness.Reply reply = harness.invoke("setVolume", unknown);
+    assertEquals("Unknown textureId", reply.errorCode);
+    Benchmark.run("onMethodCall unknown textureId", i -> harness.invoke("setVolume", unknown));
+  }
+
+  @Test
+  public void batch() throws Exception {
+    List<Map<String, Object>> commands = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Map<String, Object> command = new HashMap<>();
+      command.put("method", "setVolume");
+      command.put("textureId", textureId);
+      command.put("volume", i / 10.0);
+      commands.add(command);
+    }
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("commands", commands);
+
+    Benchmark.run(
+        "onMethodCall batch of 10 setVolume",
+        Benchmark.ITERATIONS / 10,
+        i -> assertSucceeds(harness.invoke("batch", arguments)));
+
+    List<?> results = (List<?>) harness.invoke("batch", arguments).value;
+    assertEquals(commands.size(), results.size());
+    for (Object result : results) {
+      assertFalse(((Map<?, ?>) result).containsKey("error"));
+    }
+  }
+
+  private static void assertSucceeds(PluginHarness.Reply reply) {
+    assertTrue(reply.isDone);
+    assertNull(reply.errorMessage, reply.errorCode);
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/** Plugin instances of several engines share resources but not players. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class MultiEngineTest {
+  private final MediaServer server = new MediaServer();
+  private final PluginHarness first = new PluginHarness();
+  private final PluginHarness second = new PluginHarness();
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    first.attach();
+    second.attach();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    second.detach();
+    server.shutdown();
+  }
+
+  @Test
+  public void initOnlyDisposesPlayersOfItsEngine() {
+    create(first);
+    long textureId = create(second);
+
+    // init does not reply.
+    first.invoke("init", null);
+
+    assertSucceeds(second.call("position", textureArguments(textureId)));
+    first.detach();
+  }
+
+  @Test
+  public void sharedResourcesOutliveTheFirstEngineToDetach() {
+    long textureId = create(second);
+
+    first.detach();
+
+    assertSucceeds(second.call("position", textureArguments(textureId)));
+    create(second);
+  }
+
+  private long create(PluginHarness harness) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("uri", server.progressiveUri());
+    PluginHarness.Reply reply = harness.call("create", arguments);
+    assertSucceeds(reply);
+    return ((Number) ((Map<?, ?>) reply.value).get("textureId")).longValue();
+  }
+
+  private static void assertSucceeds(PluginHarness.Reply reply) {
+    assertNull(reply.errorMessage, reply.errorCode);
+  }
+
+  private static Map<String, Object> textureArguments(long textureId) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("textureId", textureId);
+    return arguments;
+  }
+}
@@ -0,0 +1,205 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/**
+ * Creates, plays, seeks and disposes many players at once against a local HTTP server, and
+ * reports startup latency, platform-thread allocation and event throughput.
+ *
+ * <p>Robolectric has no codecs, so no track is ever rendered: this measures the plugin, the
+ * network stack and loading, not decoding. Latencies include the simulated clock steps of {@link
+ * PluginHarness#runUntil} and are only meant for comparing runs on the same machine.
+ *
+ * <p>The number of players is taken from the {@code videoPlayer.loadTestPlayers} system property.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class PlayerLoadTest {
+  private static final int PLAYERS = Integer.getInteger("videoPlayer.loadTestPlayers", 8);
+  private static final long TIMEOUT_MS = 30_000;
+
+  private final MediaServer server = new MediaServer();
+  private final PluginHarness harness = new PluginHarness();
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    harness.attach();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    harness.detach();
+    server.shutdown();
+  }
+
+  @Test
+  public void progressive() throws Exception {
+    run("progressive", server.progressiveUri(), false);
+  }
+
+  @Test
+  public void hls() throws Exception {
+    run("HLS", server.hlsUri(), false);
+  }
+
+  @Test
+  public void hlsWithCompactEvents() throws Exception {
+    run("HLS, compact events", server.hlsUri(), true);
+  }
+
+  private void run(String name, String uri, boolean compactEvents) throws Exception {
+    long startBytes = Benchmark.allocatedBytes();
+    long startNanos = System.nanoTime();
+
+    long[] createdAt = new long[PLAYERS];
+    List<PluginHarness.Reply> creates = new ArrayList<>();
+    for (int i = 0; i < PLAYERS; i++) {
+      Map<String, Object> arguments = new HashMap<>();
+      arguments.put("uri", uri);
+      arguments.put("compactEvents", compactEvents);
+      createdAt[i] = System.nanoTime();
+      creates.add(harness.invoke("create", arguments));
+    }
+    assertTrue(
+        "create did not reply",
+        PluginHarness.runUntil(() -> allDone(creates), TIMEOUT_MS));
+    // Creates are answered in passes of the platform thread; take the reply time as when the last
+    // of them was seen.
+    long repliedAt = System.nanoTime();
+    long[] createNanos = new long[PLAYERS];
+    long[] textureIds = new long[PLAYERS];
+    List<PluginHarness.PlayerEvents> events = new ArrayList<>();
+    for (int i = 0; i < PLAYERS; i++) {
+      PluginHarness.Reply reply = creates.get(i);
+      assertNull(reply.errorMessage, reply.errorCode);
+      textureIds[i] = ((Number) ((Map<?, ?>) reply.value).get("textureId")).longValue();
+      events.add(harness.listen(textureIds[i]));
+      harness.call("play", textureArguments(textureIds[i]));
+      createNanos[i] = repliedAt - createdAt[i];
+    }
+
+    assertTrue(
+        "players did not initialize",
+        PluginHarness.runUntil(() -> allInitialized(events), TIMEOUT_MS));
+    long[] startupNanos = new long[PLAYERS];
+    for (int i = 0; i < PLAYERS; i++) {
+      assertNull(events.get(i).error);
+      startupNanos[i] = events.get(i).initializedAtNanos - createdAt[i];
+    }
+
+    long seekStartNanos = System.nanoTime();
+    for (long textureId : textureIds) {
+      Map<String, Object> arguments = textureArguments(textureId);
+      arguments.put("location", 4_000);
+      harness.call("seekTo", arguments);
+    }
+    assertTrue(
+        "seeks did not complete",
+        PluginHarness.runUntil(() -> allSeeksCompleted(events), TIMEOUT_MS));
+    long seekNanos = System.nanoTime() - seekStartNanos;
+
+    for (long textureId : textureIds) {
+      PluginHarness.Reply stats = harness.call("getEventSinkStats", textureArguments(textureId));
+      assertNull(stats.errorMessage, stats.errorCode);
+      assertEquals(
+          "events dropped by player " + textureId,
+          0L,
+          ((Number) ((Map<?, ?>) stats.value).get("dropped")).longValue());
+      PluginHarness.Reply reply = harness.call("dispose", textureArguments(textureId));
+      assertNull(reply.errorMessage, reply.errorCode);
+    }
+
+    long totalNanos = System.nanoTime() - startNanos;
+    long bytes = Benchmark.allocatedBytes() - startBytes;
+    long eventCount = harness.getEventCount();
+    // At least initialized and seekCompleted for every player.
+    assertTrue("too few events: " + eventCount, eventCount >= 2L * PLAYERS);
+    assertTrue(
+        "too few requests: " + server.getRequestCount(), server.getRequestCount() >= PLAYERS);
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%s x%d: create p50 %.1fms max %.1fms, initialized p50 %.1fms p90 %.1fms max %.1fms,"
+                + " all seeks %.1fms, %d events (%.0f/s), %d requests,"
+                + " %s platform-thread bytes per player",
+            name,
+            PLAYERS,
+            millis(percentile(createNanos, 50)),
+            millis(percentile(createNanos, 100)),
+            millis(percentile(startupNanos, 50)),
+            millis(percentile(startupNanos, 90)),
+            millis(percentile(startupNanos, 100)),
+            millis(seekNanos),
+            eventCount,
+            eventCount / (totalNanos / 1e9),
+            server.getRequestCount(),
+            startBytes < 0 ? "unknown" : String.valueOf(bytes / PLAYERS)));
+  }
+
+  private static Map<String, Object> textureArguments(long textureId) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("textureId", textureId);
+    return arguments;
+  }
+
+  private static boolean allDone(List<PluginHarness.Reply> replies) {
+    for (PluginHarness.Reply reply : replies) {
+      if (!reply.isDone) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean allInitialized(List<PluginHarness.PlayerEvents> events) {
+    for (PluginHarness.PlayerEvents playerEvents : events) {
+      if (playerEvents.initializedAtNanos == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean allSeeksCompleted(List<PluginHarness.PlayerEvents> events) {
+    for (PluginHarness.PlayerEvents playerEvents : events) {
+      if (playerEvents.seekCompletedCount == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long percentile(long[] values, int percentile) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
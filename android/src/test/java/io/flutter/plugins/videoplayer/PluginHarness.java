@@ -0,0 +1,218 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.graphics.SurfaceTexture;
+import android.os.Looper;
+import androidx.test.core.app.ApplicationProvider;
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugin.common.StandardMethodCodec;
+import io.flutter.view.TextureRegistry;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attaches a {@link VideoPlayerPlugin} to a mocked engine and talks to it the way Dart does.
+ *
+ * <p>Meant for Robolectric tests in paused looper mode, where the test thread is the platform
+ * thread and the clock only moves when the main looper is idled; see {@link #runUntil}.
+ */
+final class PluginHarness {
+  private static final String EVENTS_CHANNEL_PREFIX = "flutter.io/videoPlayer/videoEvents";
+
+  interface Condition {
+    boolean isMet();
+  }
+
+  /** The events one player sent while listened to. */
+  static final class PlayerEvents {
+    int count;
+    long initializedAtNanos;
+    int seekCompletedCount;
+    String error;
+  }
+
+  /** The reply to one method call. */
+  static final class Reply implements MethodChannel.Result {
+    boolean isDone;
+    Object value;
+    String errorCode;
+    String errorMessage;
+
+    @Override
+    public void success(Object result) {
+      isDone = true;
+      value = result;
+    }
+
+    @Override
+    public void error(String errorCode, String errorMessage, Object errorDetails) {
+      isDone = true;
+      this.errorCode = errorCode;
+      this.errorMessage = errorMessage;
+    }
+
+    @Override
+    public void notImplemented() {
+      isDone = true;
+      errorCode = "notImplemented";
+    }
+  }
+
+  final VideoPlayerPlugin plugin = new VideoPlayerPlugin();
+  private final FlutterPlugin.FlutterPluginBinding binding =
+      mock(FlutterPlugin.FlutterPluginBinding.class);
+  private final Map<String, BinaryMessenger.BinaryMessageHandler> handlers = new HashMap<>();
+  private final Map<Long, PlayerEvents> events = new HashMap<>();
+  private final AtomicLong nextTextureId = new AtomicLong();
+  private long eventCount;
+
+  PluginHarness() {
+    BinaryMessenger messenger = mock(BinaryMessenger.class);
+    doAnswer(
+            invocation -> {
+              String channel = invocation.getArgument(0);
+              BinaryMessenger.BinaryMessageHandler handler = invocation.getArgument(1);
+              if (handler == null) {
+                handlers.remove(channel);
+              } else {
+                handlers.put(channel, handler);
+              }
+              return null;
+            })
+        .when(messenger)
+        .setMessageHandler(anyString(), any());
+    doAnswer(
+            invocation -> {
+              onMessageSent(invocation.getArgument(0), invocation.getArgument(1));
+              return null;
+            })
+        .when(messenger)
+        .send(anyString(), any());
+    doAnswer(
+            invocation -> {
+              onMessageSent(invocation.getArgument(0), invocation.getArgument(1));
+              return null;
+            })
+        .when(messenger)
+        .send(anyString(), any(), any());
+
+    TextureRegistry textures = mock(TextureRegistry.class);
+    when(textures.createSurfaceTexture()).thenAnswer(invocation -> newTextureEntry());
+
+    when(binding.getApplicationContext()).thenReturn(ApplicationProvider.getApplicationContext());
+    when(binding.getBinaryMessenger()).thenReturn(messenger);
+    when(binding.getTextureRegistry()).thenReturn(textures);
+    when(binding.getFlutterAssets()).thenReturn(mock(FlutterPlugin.FlutterAssets.class));
+  }
+
+  void attach() {
+    plugin.onAttachedToEngine(binding);
+  }
+
+  void detach() {
+    plugin.onDetachedFromEngine(binding);
+  }
+
+  /** Calls {@code method} without waiting for the reply. */
+  Reply invoke(String method, Map<String, Object> arguments) {
+    Reply reply = new Reply();
+    plugin.onMethodCall(new MethodCall(method, arguments), reply);
+    return reply;
+  }
+
+  /** Calls {@code method} and runs the platform thread until it replies. */
+  Reply call(String method, Map<String, Object> arguments) {
+    Reply reply = invoke(method, arguments);
+    if (!runUntil(() -> reply.isDone, 10_000)) {
+      throw new AssertionError(method + " did not reply");
+    }
+    return reply;
+  }
+
+  /** Subscribes to the events of the player with {@code textureId}, as the Dart side does. */
+  PlayerEvents listen(long textureId) {
+    PlayerEvents playerEvents = new PlayerEvents();
+    events.put(textureId, playerEvents);
+    ByteBuffer listen =
+        StandardMethodCodec.INSTANCE.encodeMethodCall(new MethodCall("listen", null));
+    handlers.get(EVENTS_CHANNEL_PREFIX + textureId).onMessage(listen, reply -> {});
+    return playerEvents;
+  }
+
+  /** Events sent by every player so far. */
+  long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Idles the platform thread in steps of 10ms of simulated time until {@code condition} holds or
+   * {@code timeoutMs} of real time passed, so that background threads waiting on the clock also
+   * make progress.
+   */
+  static boolean runUntil(Condition condition, long timeoutMs) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    while (!condition.isMet()) {
+      if (System.nanoTime() > deadline) {
+        return false;
+      }
+      shadowOf(Looper.getMainLooper()).idleFor(10, TimeUnit.MILLISECONDS);
+    }
+    return true;
+  }
+
+  private TextureRegistry.SurfaceTextureEntry newTextureEntry() {
+    long id = nextTextureId.getAndIncrement();
+    SurfaceTexture surfaceTexture = new SurfaceTexture(0);
+    TextureRegistry.SurfaceTextureEntry entry = mock(TextureRegistry.SurfaceTextureEntry.class);
+    when(entry.id()).thenReturn(id);
+    when(entry.surfaceTexture()).thenReturn(surfaceTexture);
+    return entry;
+  }
+
+  private void onMessageSent(String channel, ByteBuffer message) {
+    if (!channel.startsWith(EVENTS_CHANNEL_PREFIX) || message == null) {
+      return;
+    }
+    eventCount++;
+    PlayerEvents playerEvents =
+        events.get(Long.parseLong(channel.substring(EVENTS_CHANNEL_PREFIX.length())));
+    if (playerEvents == null) {
+      return;
+    }
+    playerEvents.count++;
+    // The codec leaves the envelope positioned at its end.
+    message.rewind();
+    Object event;
+    try {
+      event = StandardMethodCodec.INSTANCE.decodeEnvelope(message);
+    } catch (RuntimeException e) {
+      playerEvents.error = e.getMessage();
+      return;
+    }
+    String type =
+        event instanceof Map
+            ? (String) ((Map<?, ?>) event).get("event")
+            : CompactEventEncoder.typeName(event);
+    if ("initialized".equals(type) && playerEvents.initializedAtNanos == 0) {
+      playerEvents.initializedAtNanos = System.nanoTime();
+    } else if ("seekCompleted".equals(type)) {
+      playerEvents.seekCompletedCount++;
+    }
+  }
+}
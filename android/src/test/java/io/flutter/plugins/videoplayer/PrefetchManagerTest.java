@@ -0,0 +1,185 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkCapabilities;
+import androidx.test.core.app.ApplicationProvider;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowNetworkCapabilities;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class PrefetchManagerTest {
+  private static final long TIMEOUT_MS = 10_000;
+
+  private final Context context = ApplicationProvider.getApplicationContext();
+  private final MediaServer server = new MediaServer();
+  // The latest state and progress of every prefetch, and the order in which they started and were
+  // removed.
+  private final Map<String, String> states = new HashMap<>();
+  private final Map<String, Long> bytesFetched = new HashMap<>();
+  private final List<String> started = new ArrayList<>();
+  private final List<String> removed = new ArrayList<>();
+  private PrefetchManager prefetches;
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    ConnectivityManager connectivity =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    NetworkCapabilities capabilities = ShadowNetworkCapabilities.newInstance();
+    shadowOf(capabilities).addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    shadowOf(capabilities).addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    shadowOf(connectivity).setNetworkCapabilities(connectivity.getActiveNetwork(), capabilities);
+    prefetches =
+        new PrefetchManager(
+            context,
+            prefetch -> {
+              String uri = (String) prefetch.get("uri");
+              String state = (String) prefetch.get("state");
+              if (state.equals(PrefetchManager.STATE_FETCHING)
+                  && !PrefetchManager.STATE_FETCHING.equals(states.get(uri))) {
+                started.add(uri);
+              } else if (state.equals(PrefetchManager.STATE_REMOVED)) {
+                removed.add(uri);
+              }
+              states.put(uri, state);
+              bytesFetched.put(uri, (Long) prefetch.get("bytesFetched"));
+            });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    prefetches.release();
+    server.shutdown();
+    VideoPlayerCache.releaseInstance();
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedOverQuota() {
+    prefetches.configure(1, null);
+    String first = uri(1);
+    String second = uri(2);
+    String third = uri(3);
+    enqueue(first, 0);
+    enqueue(second, 0);
+    enqueue(third, 0);
+    awaitState(third, PrefetchManager.STATE_COMPLETED);
+    long cacheSizeBefore = cacheSize();
+
+    // Using the first one makes the second one the least recently used.
+    assertTrue(prefetches.use(first));
+    prefetches.configure(null, (long) server.progressiveLength());
+
+    assertEquals(Arrays.asList(second, third), removed);
+    assertEquals(PrefetchManager.STATE_COMPLETED, states.get(first));
+    assertEquals(1, prefetches.getAll().size());
+    long expectedCacheSize = cacheSizeBefore - 2L * server.progressiveLength();
+    assertTrue(
+        "evicted data was not removed",
+        PluginHarness.runUntil(() -> cacheSize() == expectedCacheSize, TIMEOUT_MS));
+  }
+
+  @Test
+  public void cancellingRunningPrefetchRemovesDataAfterItStops() {
+    long cacheSizeBefore = cacheSize();
+    server.throttle(4096);
+    String uri = uri(1);
+    enqueue(uri, 0);
+    // The cache only takes the data in once the task closes the file it is writing.
+    assertTrue(
+        "prefetch made no progress",
+        PluginHarness.runUntil(() -> bytesFetched.get(uri) > 0, TIMEOUT_MS));
+    assertEquals(cacheSizeBefore, cacheSize());
+
+    assertTrue(prefetches.cancel(uri, true));
+
+    assertEquals(PrefetchManager.STATE_CANCELLED, states.get(uri));
+    assertTrue(
+        "cancelled data was not removed",
+        PluginHarness.runUntil(() -> cacheSize() == cacheSizeBefore, TIMEOUT_MS));
+    // Had the data been removed while the task was still writing, the file it closed on stopping
+    // would show up now.
+    PluginHarness.runUntil(() -> false, 1_000);
+    assertEquals(cacheSizeBefore, cacheSize());
+  }
+
+  @Test
+  public void startsQueuedPrefetchesByPriority() {
+    prefetches.configure(1, null);
+    String running = uri(1);
+    String low = uri(2);
+    String raised = uri(3);
+    String high = uri(4);
+    enqueue(running, 0);
+    enqueue(low, 1);
+    enqueue(raised, 0);
+    enqueue(high, 5);
+
+    assertTrue(prefetches.setPriority(raised, 10));
+    awaitState(low, PrefetchManager.STATE_COMPLETED);
+
+    assertEquals(Arrays.asList(running, raised, high, low), started);
+  }
+
+  @Test
+  public void selectsHighestBitrateWithinLimit() {
+    List<Integer> bitrates = Arrays.asList(800_000, 200_000, Format.NO_VALUE, 400_000);
+
+    assertEquals(3, PrefetchManager.selectBitrate(bitrates, 500_000));
+    assertEquals(0, PrefetchManager.selectBitrate(bitrates, 800_000));
+    // Every known bitrate is above the limit, so the lowest one is picked.
+    assertEquals(1, PrefetchManager.selectBitrate(bitrates, 100_000));
+    assertEquals(
+        0, PrefetchManager.selectBitrate(Arrays.asList(Format.NO_VALUE, Format.NO_VALUE), 1));
+    assertEquals(C.INDEX_UNSET, PrefetchManager.selectBitrate(Collections.emptyList(), 1));
+  }
+
+  private String uri(int index) {
+    return server.progressiveUri() + "?v=" + index;
+  }
+
+  private void enqueue(String uri, int priority) {
+    prefetches.enqueue(
+        uri,
+        /* headers= */ null,
+        /* cacheKey= */ null,
+        priority,
+        C.LENGTH_UNSET,
+        /* maxBitrate= */ 0,
+        /* requiresUnmetered= */ false);
+  }
+
+  private void awaitState(String uri, String state) {
+    assertTrue(
+        uri + " did not reach " + state,
+        PluginHarness.runUntil(() -> state.equals(states.get(uri)), TIMEOUT_MS));
+  }
+
+  private long cacheSize() {
+    return (Long) VideoPlayerCache.getInstance(context).getStats().get("cacheSize");
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.flutter.plugin.common.EventChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/** Throughput and allocation of {@link QueuingEventSink} for the events players send most. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class QueuingEventSinkBenchmark {
+  private static final class CountingSink implements EventChannel.EventSink {
+    long count;
+
+    @Override
+    public void success(Object event) {
+      count++;
+    }
+
+    @Override
+    public void error(String errorCode, String errorMessage, Object errorDetails) {
+      count++;
+    }
+
+    @Override
+    public void endOfStream() {}
+  }
+
+  @Test
+  public void deliversMapEvents() throws Exception {
+    CountingSink delegate = new CountingSink();
+    QueuingEventSink sink = new QueuingEventSink();
+    sink.setDelegate(delegate);
+
+    Benchmark.run(
+        "QueuingEventSink map position, delivered",
+        i -> {
+          Map<String, Object> event = new HashMap<>();
+          event.put("event", "position");
+          event.put("position", (long) i);
+          event.put("buffered", (long) i);
+          sink.success(event);
+        });
+
+    assertEquals(Benchmark.ITERATIONS + Math.max(1, Benchmark.ITERATIONS / 10), delegate.count);
+  }
+
+  @Test
+  public void deliversCompactEvents() throws Exception {
+    CountingSink delegate = new CountingSink();
+    QueuingEventSink sink = new QueuingEventSink();
+    sink.setDelegate(delegate);
+    CompactEventEncoder encoder = new CompactEventEncoder();
+
+    Benchmark.run(
+        "QueuingEventSink compact position, delivered",
+        i -> sink.success(encoder.encode(CompactEventEncoder.POSITION, i, i)));
+
+    assertEquals(Benchmark.ITERATIONS + Math.max(1, Benchmark.ITERATIONS / 10), delegate.count);
+  }
+
+  @Test
+  public void coalescesWhileNotListenedTo() throws Exception {
+    QueuingEventSink sink = new QueuingEventSink();
+    sink.success(new HashMap<>(Collections.singletonMap("event", "initialized")));
+
+    Benchmark.run(
+        "QueuingEventSink map position, coalesced",
+        i -> {
+          Map<String, Object> event = new HashMap<>();
+          event.put("event", "position");
+          event.put("position", (long) i);
+          sink.success(event);
+        });
+
+    assertEquals(0, sink.getDroppedCount());
+    assertTrue(sink.getCoalescedCount() > 0);
+  }
+
+  @Test
+  public void dropsWhenFullAndNotListenedTo() throws Exception {
+    QueuingEventSink sink = new QueuingEventSink();
+
+    Benchmark.run(
+        "QueuingEventSink bufferingStart, dropped",
+        i -> {
+          Map<String, Object> event = new HashMap<>();
+          event.put("event", i % 2 == 0 ? "bufferingStart" : "bufferingEnd");
+          sink.success(event);
+        });
+
+    assertTrue(sink.getDroppedCount() > 0);
+  }
+}
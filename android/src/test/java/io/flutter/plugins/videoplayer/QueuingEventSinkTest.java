@@ -0,0 +1,159 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import io.flutter.plugin.common.EventChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class QueuingEventSinkTest {
+  /** Records the type of every event it receives, and the thread of the last one. */
+  private static final class RecordingSink implements EventChannel.EventSink {
+    final List<String> types = new ArrayList<>();
+    final List<Object> events = new ArrayList<>();
+    Thread thread;
+
+    @Override
+    public void success(Object event) {
+      String type =
+          event instanceof Map
+              ? (String) ((Map<?, ?>) event).get("event")
+              : CompactEventEncoder.typeName(event);
+      types.add(type);
+      events.add(event);
+      thread = Thread.currentThread();
+    }
+
+    @Override
+    public void error(String errorCode, String errorMessage, Object errorDetails) {
+      types.add("error:" + errorCode);
+      events.add(null);
+    }
+
+    @Override
+    public void endOfStream() {
+      types.add("endOfStream");
+      events.add(null);
+    }
+  }
+
+  private final RecordingSink delegate = new RecordingSink();
+
+  @Test
+  public void dropsOldestNonCriticalEventWhenFull() {
+    QueuingEventSink sink = new QueuingEventSink(3);
+    sink.success(event("initialized"));
+    sink.success(event("bufferingStart"));
+    sink.success(event("bufferingEnd"));
+    sink.success(event("played"));
+
+    sink.setDelegate(delegate);
+
+    assertEquals(Arrays.asList("initialized", "bufferingEnd", "played"), delegate.types);
+    assertEquals(1, sink.getDroppedCount());
+  }
+
+  @Test
+  public void neverDropsCriticalEvents() {
+    QueuingEventSink sink = new QueuingEventSink(1);
+    sink.success(event("initialized"));
+    sink.error("VideoError", "failed", null);
+    // Only critical events are queued, so this one is dropped instead.
+    sink.success(event("played"));
+    sink.endOfStream();
+
+    sink.setDelegate(delegate);
+
+    assertEquals(
+        Arrays.asList("initialized", "error:VideoError", "endOfStream"), delegate.types);
+    assertEquals(1, sink.getDroppedCount());
+  }
+
+  @Test
+  public void coalescedEventTakesThePlaceOfTheLatest() {
+    QueuingEventSink sink = new QueuingEventSink();
+    sink.success(position(1));
+    sink.success(event("played"));
+    sink.success(event("bufferingUpdate"));
+    sink.success(position(2));
+    sink.success(event("stats"));
+    sink.success(event("stats"));
+
+    sink.setDelegate(delegate);
+
+    assertEquals(Arrays.asList("played", "bufferingUpdate", "position", "stats"), delegate.types);
+    assertEquals(2L, ((Map<?, ?>) delegate.events.get(2)).get("position"));
+    assertEquals(2, sink.getCoalescedCount());
+    assertEquals(0, sink.getDroppedCount());
+  }
+
+  @Test
+  public void coalescesCompactEventsLikeMapEvents() {
+    QueuingEventSink sink = new QueuingEventSink();
+    CompactEventEncoder encoder = new CompactEventEncoder();
+    sink.success(encoder.encode(CompactEventEncoder.POSITION, 1, 5));
+    sink.success(encoder.encode(CompactEventEncoder.POSITION, 2, 5));
+
+    sink.setDelegate(delegate);
+
+    assertEquals(Arrays.asList("position"), delegate.types);
+    assertEquals(1, sink.getCoalescedCount());
+  }
+
+  @Test
+  public void ignoresEventsAfterEndOfStream() {
+    QueuingEventSink sink = new QueuingEventSink();
+    sink.setDelegate(delegate);
+
+    sink.success(event("played"));
+    sink.endOfStream();
+    sink.success(event("paused"));
+
+    assertEquals(Arrays.asList("played", "endOfStream"), delegate.types);
+  }
+
+  @Test
+  public void deliversEventsFromOtherThreadsOnTheMainThread() throws Exception {
+    QueuingEventSink sink = new QueuingEventSink();
+    sink.setDelegate(delegate);
+
+    Thread producer = new Thread(() -> sink.success(event("played")));
+    producer.start();
+    producer.join();
+    assertEquals(0, delegate.types.size());
+    shadowOf(Looper.getMainLooper()).idle();
+
+    assertEquals(Arrays.asList("played"), delegate.types);
+    assertSame(Looper.getMainLooper().getThread(), delegate.thread);
+  }
+
+  private static Map<String, Object> event(String type) {
+    Map<String, Object> event = new HashMap<>();
+    event.put("event", type);
+    return event;
+  }
+
+  private static Map<String, Object> position(long position) {
+    Map<String, Object> event = event("position");
+    event.put("position", position);
+    return event;
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/** Seeks that do not change the playback state still complete and let later seeks run. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class SeekTest {
+  private static final long TIMEOUT_MS = 10_000;
+
+  private final MediaServer server = new MediaServer();
+  private final PluginHarness harness = new PluginHarness();
+  private long textureId;
+  private PluginHarness.PlayerEvents events;
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    harness.attach();
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("uri", server.progressiveUri());
+    PluginHarness.Reply reply = harness.call("create", arguments);
+    assertNull(reply.errorMessage, reply.errorCode);
+    textureId = ((Number) ((Map<?, ?>) reply.value).get("textureId")).longValue();
+    events = harness.listen(textureId);
+    assertTrue(
+        "player did not initialize",
+        PluginHarness.runUntil(() -> events.initializedAtNanos != 0, TIMEOUT_MS));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    harness.detach();
+    server.shutdown();
+  }
+
+  @Test
+  public void repeatedSeeksToBufferedPositionComplete() {
+    // The current position, then the same buffered position twice.
+    seekAndAwait(0, 1);
+    seekAndAwait(1_000, 2);
+    seekAndAwait(1_000, 3);
+
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("textureId", textureId);
+    assertEquals(1_000L, ((Number) harness.call("position", arguments).value).longValue());
+  }
+
+  private void seekAndAwait(int location, int expectedSeekCompletedCount) {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("textureId", textureId);
+    arguments.put("location", location);
+    PluginHarness.Reply reply = harness.call("seekTo", arguments);
+    assertNull(reply.errorMessage, reply.errorCode);
+    assertTrue(
+        "seek to " + location + " did not complete",
+        PluginHarness.runUntil(
+            () -> events.seekCompletedCount == expectedSeekCompletedCount, TIMEOUT_MS));
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+
+import android.net.Uri;
+import androidx.test.core.app.ApplicationProvider;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class VideoPlayerCacheTest {
+  private final MediaServer server = new MediaServer();
+  private VideoPlayerCache cache;
+
+  @Before
+  public void setUp() throws IOException {
+    server.start();
+    cache = VideoPlayerCache.getInstance(ApplicationProvider.getApplicationContext());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    VideoPlayerCache.releaseInstance();
+    server.shutdown();
+  }
+
+  @Test
+  public void cacheKeyLeavesOutIgnoredParameters() {
+    cache.configure(null, Arrays.asList("token", "expires"));
+
+    assertEquals(
+        "https://cdn.example.com/video.mp4?z=1&a=2",
+        key("https://cdn.example.com/video.mp4?z=1&token=abc&a=2&expires=123"));
+    assertEquals(
+        "https://cdn.example.com/video.mp4", key("https://cdn.example.com/video.mp4?token=abc"));
+  }
+
+  @Test
+  public void cacheKeyKeepsUrisWithoutIgnoredParameters() {
+    assertEquals(
+        "https://cdn.example.com/video.mp4?token=abc",
+        key("https://cdn.example.com/video.mp4?token=abc"));
+
+    cache.configure(null, Arrays.asList("token"));
+
+    assertEquals("https://cdn.example.com/video.mp4", key("https://cdn.example.com/video.mp4"));
+    assertEquals(
+        "https://cdn.example.com/video.mp4?b=1&a=2",
+        key("https://cdn.example.com/video.mp4?b=1&a=2"));
+  }
+
+  @Test
+  public void cacheKeyPrefersExplicitKey() {
+    cache.configure(null, Arrays.asList("token"));
+    DataSpec dataSpec =
+        new DataSpec.Builder()
+            .setUri("https://cdn.example.com/video.mp4?token=abc")
+            .setKey("custom")
+            .build();
+
+    assertEquals("custom", cache.buildCacheKey(dataSpec));
+  }
+
+  @Test
+  public void countsHitsAndMisses() throws IOException {
+    String uri = server.progressiveUri();
+    long length = server.progressiveLength();
+
+    read(uri);
+    Map<String, Object> stats = cache.getStats();
+    assertEquals(1L, stats.get("misses"));
+    assertEquals(length, stats.get("missBytes"));
+    assertEquals(0L, stats.get("hits"));
+
+    read(uri);
+    stats = cache.getStats();
+    assertEquals(1L, stats.get("hits"));
+    assertEquals(length, stats.get("hitBytes"));
+    assertEquals(1L, stats.get("misses"));
+    assertEquals(1, server.getRequestCount());
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedWhenCapIsLowered() throws IOException {
+    String first = server.progressiveUri() + "?v=1";
+    String second = server.progressiveUri() + "?v=2";
+    long length = server.progressiveLength();
+    read(first);
+    read(second);
+    // Reading the first one again makes the second one the least recently used.
+    read(first);
+
+    cache.configure(length, null);
+
+    Map<String, Object> stats = cache.getStats();
+    assertEquals(1L, stats.get("evictions"));
+    assertEquals(length, stats.get("evictedBytes"));
+    assertEquals(length, stats.get("cacheSize"));
+    assertEquals(length, stats.get("maxCacheSize"));
+    read(first);
+    assertEquals(2, server.getRequestCount());
+    read(second);
+    assertEquals(3, server.getRequestCount());
+  }
+
+  private String key(String uri) {
+    return cache.buildCacheKey(new DataSpec(Uri.parse(uri)));
+  }
+
+  private void read(String uri) throws IOException {
+    DataSource dataSource =
+        cache
+            .buildDataSourceFactory(VideoPlayerHttpStack.getInstance().buildDataSourceFactory(null))
+            .createDataSource();
+    dataSource.open(new DataSpec(Uri.parse(uri)));
+    byte[] buffer = new byte[4096];
+    while (dataSource.read(buffer, 0, buffer.length) != C.RESULT_END_OF_INPUT) {}
+    dataSource.close();
+  }
+}
@@ -0,0 +1,108 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.videoplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import android.net.Uri;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/** The shared stack keeps connections alive between requests and bounds them per host. */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class VideoPlayerHttpStackTest {
+  private static final String BODY = "0123456789";
+
+  private final MockWebServer server = new MockWebServer();
+  private final VideoPlayerHttpStack stack = VideoPlayerHttpStack.getInstance();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @Before
+  public void setUp() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse().setBody(BODY));
+    }
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    stack.configure(
+        false,
+        VideoPlayerHttpStack.DEFAULT_MAX_IDLE_CONNECTIONS,
+        VideoPlayerHttpStack.DEFAULT_KEEP_ALIVE_MS,
+        0);
+    stack.releaseClient();
+    server.shutdown();
+  }
+
+  @Test
+  public void reusesConnectionsAcrossDataSources() throws Exception {
+    stack.configure(true, null, null, 0);
+    DataSource.Factory factory = stack.buildDataSourceFactory(null);
+
+    for (int i = 0; i < 3; i++) {
+      DataSource dataSource = factory.createDataSource();
+      dataSource.open(dataSpec());
+      readToEnd(dataSource);
+      dataSource.close();
+    }
+
+    // The sequence number counts the requests made on the same connection.
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, server.takeRequest().getSequenceNumber());
+    }
+    assertEquals(3, server.getRequestCount());
+  }
+
+  @Test
+  public void boundsConnectionsPerHost() throws Exception {
+    stack.configure(true, null, null, 1);
+    DataSource.Factory factory = stack.buildDataSourceFactory(null);
+    DataSource first = factory.createDataSource();
+    DataSource second = factory.createDataSource();
+
+    first.open(dataSpec());
+    Future<Long> secondOpen = executor.submit(() -> second.open(dataSpec()));
+
+    // The second data source waits for the permit the first one holds.
+    Thread.sleep(200);
+    assertFalse(secondOpen.isDone());
+    assertEquals(1, server.getRequestCount());
+
+    readToEnd(first);
+    first.close();
+    assertEquals(BODY.length(), (long) secondOpen.get(5, TimeUnit.SECONDS));
+    readToEnd(second);
+    second.close();
+    assertEquals(2, server.getRequestCount());
+  }
+
+  private DataSpec dataSpec() {
+    return new DataSpec(Uri.parse(server.url("/video.mp4").toString()));
+  }
+
+  private static void readToEnd(DataSource dataSource) throws IOException {
+    byte[] buffer = new byte[BODY.length()];
+    while (dataSource.read(buffer, 0, buffer.length) != C.RESULT_END_OF_INPUT) {}
+  }
+}
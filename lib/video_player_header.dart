@@ -4,6 +4,7 @@
 
 import 'dart:async';
 import 'dart:io';
+import 'dart:typed_data';
 
 import 'package:flutter/services.dart';
 import 'package:flutter/material.dart';
@@ -14,6 +15,36 @@ final MethodChannel _channel = const MethodChannel('flutter.io/videoPlayer')
 // performed.
   ..invokeMethod('init');
 
+/// Events about the plugin as a whole rather than one player. Android only.
+final Stream<dynamic> _pluginEvents =
+    const EventChannel('flutter.io/videoPlayer/events')
+        .receiveBroadcastStream();
+
+/// How often the playing position is refreshed unless
+/// [VideoPlayerController.setPositionUpdateInterval] says otherwise.
+const Duration _defaultPositionUpdateInterval = Duration(milliseconds: 500);
+
+/// Whether the platform pushes position updates as events instead of being
+/// polled.
+final bool _nativePositionUpdates = Platform.isAndroid;
+
+/// Whether the platform implements the `batch` method, see
+/// [VideoPlayerController.batch].
+final bool _supportsBatch = Platform.isAndroid;
+
+/// Whether players created from now on ask for compact binary events, see
+/// [VideoPlayerController.setCompactEvents].
+bool _compactEvents = false;
+
+// Type codes of the compact event format, see CompactEventEncoder on Android.
+const int _compactInitialized = 1;
+const int _compactBufferingStart = 2;
+const int _compactBufferingEnd = 3;
+const int _compactPlayed = 4;
+const int _compactPaused = 5;
+const int _compactPosition = 6;
+const int _compactSeekCompleted = 7;
+
 class DurationRange {
   DurationRange(this.start, this.end);
 
@@ -44,6 +75,7 @@ class VideoPlayerValue {
     this.isLooping = false,
     this.isBuffering = false,
     this.volume = 1.0,
+    this.isHibernated = false,
     this.errorDescription,
   });
 
@@ -75,6 +107,14 @@ class VideoPlayerValue {
   /// The current volume of the playback.
   final double volume;
 
+  /// True while the platform released the decoders of this player to stay
+  /// within the budget set by [VideoPlayerController.configureDecoderBudget].
+  ///
+  /// The texture may not show the current frame, so a placeholder is usually
+  /// shown instead. [VideoPlayerController.play] and
+  /// [VideoPlayerController.seekTo] restore the player.
+  final bool isHibernated;
+
   /// A description of the error if present.
   ///
   /// If [hasError] is false this is [null].
@@ -98,6 +138,7 @@ class VideoPlayerValue {
     bool isLooping,
     bool isBuffering,
     double volume,
+    bool isHibernated,
     String errorDescription,
   }) {
     return VideoPlayerValue(
@@ -109,6 +150,7 @@ class VideoPlayerValue {
       isLooping: isLooping ?? this.isLooping,
       isBuffering: isBuffering ?? this.isBuffering,
       volume: volume ?? this.volume,
+      isHibernated: isHibernated ?? this.isHibernated,
       errorDescription: errorDescription ?? this.errorDescription,
     );
   }
@@ -124,12 +166,563 @@ class VideoPlayerValue {
         'isLooping: $isLooping, '
         'isBuffering: $isBuffering'
         'volume: $volume, '
+        'isHibernated: $isHibernated, '
         'errorDescription: $errorDescription)';
   }
 }
 
 enum DataSourceType { asset, network, file }
 
+/// How precisely [VideoPlayerController.seekTo] lands on its target.
+///
+/// The sync modes jump to a key frame, which is much cheaper than decoding up
+/// to the exact frame and suits scrubbing. Android only; other platforms
+/// always seek exactly.
+enum VideoSeekMode {
+  /// The exact requested position.
+  exact,
+
+  /// Whichever key frame is closest to the requested position.
+  closestSync,
+
+  /// The closest key frame at or before the requested position.
+  previousSync,
+
+  /// The closest key frame at or after the requested position.
+  nextSync,
+}
+
+/// Limits applied to adaptive (HLS, DASH, SmoothStreaming) track selection.
+///
+/// Android only.
+class VideoTrackConstraints {
+  const VideoTrackConstraints({
+    this.maxBitrate,
+    this.maxVideoSize,
+    this.initialBitrate,
+  });
+
+  /// The highest video bitrate to select, in bits per second.
+  final int maxBitrate;
+
+  /// The largest video resolution to select, in physical pixels. Usually the
+  /// size the [VideoPlayer] widget is laid out at.
+  final Size maxVideoSize;
+
+  /// The bandwidth estimate to open with, in bits per second, until the
+  /// estimate shared by all players has been measured.
+  ///
+  /// Once any player has transferred media, this and every later player start
+  /// from the measured estimate instead, so this only affects players created
+  /// before the first measurement.
+  final int initialBitrate;
+
+  Map<String, dynamic> _toMap() {
+    return <String, dynamic>{
+      'maxBitrate': maxBitrate,
+      'maxVideoWidth': maxVideoSize?.width?.round(),
+      'maxVideoHeight': maxVideoSize?.height?.round(),
+      'initialBitrate': initialBitrate,
+    };
+  }
+}
+
+/// How much media a player buffers ahead of (and behind) the playback
+/// position.
+///
+/// Use one of the presets, optionally adjusted with [copyWith]. Android only.
+class VideoBufferingProfile {
+  const VideoBufferingProfile._(
+    this._name, {
+    this.minBuffer,
+    this.maxBuffer,
+    this.bufferForPlayback,
+    this.bufferForPlaybackAfterRebuffer,
+    this.targetBufferBytes,
+    this.backBuffer,
+  });
+
+  /// The platform player's defaults.
+  static const VideoBufferingProfile standard =
+      VideoBufferingProfile._('default');
+
+  /// Starts playback early on a modest buffer, for scrolling feeds.
+  static const VideoBufferingProfile fastStart =
+      VideoBufferingProfile._('fastStart');
+
+  /// Keeps a few seconds under a small byte cap, for grids of previews.
+  static const VideoBufferingProfile lowMemory =
+      VideoBufferingProfile._('lowMemory');
+
+  /// Buffers far ahead and keeps a back buffer, for full-screen playback.
+  static const VideoBufferingProfile longBuffer =
+      VideoBufferingProfile._('longBuffer');
+
+  final String _name;
+
+  /// The buffer the player tries to keep at least.
+  final Duration minBuffer;
+
+  /// The buffer above which the player stops loading.
+  final Duration maxBuffer;
+
+  /// The buffer needed to start playback.
+  final Duration bufferForPlayback;
+
+  /// The buffer needed to resume playback after a stall.
+  final Duration bufferForPlaybackAfterRebuffer;
+
+  /// The byte cap of the buffer, or null for one derived from the tracks.
+  final int targetBufferBytes;
+
+  /// How much already played media is kept for seeking back.
+  final Duration backBuffer;
+
+  /// Returns this profile with the given values replacing the preset ones.
+  VideoBufferingProfile copyWith({
+    Duration minBuffer,
+    Duration maxBuffer,
+    Duration bufferForPlayback,
+    Duration bufferForPlaybackAfterRebuffer,
+    int targetBufferBytes,
+    Duration backBuffer,
+  }) {
+    return VideoBufferingProfile._(
+      _name,
+      minBuffer: minBuffer ?? this.minBuffer,
+      maxBuffer: maxBuffer ?? this.maxBuffer,
+      bufferForPlayback: bufferForPlayback ?? this.bufferForPlayback,
+      bufferForPlaybackAfterRebuffer:
+          bufferForPlaybackAfterRebuffer ?? this.bufferForPlaybackAfterRebuffer,
+      targetBufferBytes: targetBufferBytes ?? this.targetBufferBytes,
+      backBuffer: backBuffer ?? this.backBuffer,
+    );
+  }
+
+  Map<String, dynamic> _toMap() {
+    return <String, dynamic>{
+      'bufferingProfile': _name,
+      'bufferingConfig': <String, dynamic>{
+        'minBufferMs': minBuffer?.inMilliseconds,
+        'maxBufferMs': maxBuffer?.inMilliseconds,
+        'bufferForPlaybackMs': bufferForPlayback?.inMilliseconds,
+        'bufferForPlaybackAfterRebufferMs':
+            bufferForPlaybackAfterRebuffer?.inMilliseconds,
+        'targetBufferBytes': targetBufferBytes,
+        'backBufferMs': backBuffer?.inMilliseconds,
+      },
+    };
+  }
+}
+
+/// A single player method call sent through [VideoPlayerController.batch].
+class VideoPlayerCommand {
+  VideoPlayerCommand(this.controller, this.method, [this.arguments]);
+
+  /// The controller whose player receives the command.
+  final VideoPlayerController controller;
+
+  /// The platform method name, such as `setVolume` or `seekTo`.
+  final String method;
+
+  /// The method arguments, not including the texture id.
+  final Map<String, dynamic> arguments;
+
+  Map<String, dynamic> _toMap() {
+    return <String, dynamic>{}
+      ..addAll(arguments ?? const <String, dynamic>{})
+      ..['method'] = method
+      ..['textureId'] = controller.textureId;
+  }
+}
+
+/// Counters reported by the shared on-disk media cache.
+///
+/// Hits and misses count data source reads served from disk and from the
+/// network respectively.
+class VideoCacheStats {
+  VideoCacheStats._fromMap(Map<dynamic, dynamic> map)
+      : hits = map['hits'],
+        misses = map['misses'],
+        hitBytes = map['hitBytes'],
+        missBytes = map['missBytes'],
+        evictions = map['evictions'],
+        evictedBytes = map['evictedBytes'],
+        cacheSize = map['cacheSize'],
+        maxCacheSize = map['maxCacheSize'];
+
+  final int hits;
+  final int misses;
+  final int hitBytes;
+  final int missBytes;
+  final int evictions;
+  final int evictedBytes;
+  final int cacheSize;
+  final int maxCacheSize;
+
+  @override
+  String toString() {
+    return '$runtimeType('
+        'hits: $hits, '
+        'misses: $misses, '
+        'hitBytes: $hitBytes, '
+        'missBytes: $missBytes, '
+        'evictions: $evictions, '
+        'evictedBytes: $evictedBytes, '
+        'cacheSize: $cacheSize, '
+        'maxCacheSize: $maxCacheSize)';
+  }
+}
+
+/// Quality-of-experience metrics of one player.
+///
+/// Times are measured from when the platform player was created. Durations
+/// that have not happened yet are null.
+class VideoPlaybackStats {
+  VideoPlaybackStats._fromMap(Map<dynamic, dynamic> map)
+      : timeToFirstFrame = _durationOrNull(map['timeToFirstFrameMs']),
+        joinTime = _durationOrNull(map['joinTimeMs']),
+        rebufferCount = map['rebufferCount'],
+        rebufferDuration = Duration(milliseconds: map['rebufferDurationMs']),
+        droppedFrames = map['droppedFrames'],
+        bitrateSwitches = map['bitrateSwitches'],
+        videoBitrate = map['videoBitrate'],
+        bandwidthEstimate = map['bandwidthEstimate'],
+        bytesLoaded = map['bytesLoaded'],
+        droppedEvents = map['droppedEvents'],
+        coalescedEvents = map['coalescedEvents'];
+
+  static Duration _durationOrNull(int milliseconds) =>
+      milliseconds == null ? null : Duration(milliseconds: milliseconds);
+
+  /// Time until the first video frame was rendered.
+  final Duration timeToFirstFrame;
+
+  /// Time from the first play request until playback actually started.
+  final Duration joinTime;
+
+  /// Number of stalls after playback started, not counting seeks.
+  final int rebufferCount;
+
+  /// Total time spent in those stalls.
+  final Duration rebufferDuration;
+
+  final int droppedFrames;
+
+  /// Number of times the selected video bitrate changed.
+  final int bitrateSwitches;
+
+  /// The bitrate of the video being played, in bits per second.
+  final int videoBitrate;
+
+  /// The shared bandwidth estimate, in bits per second.
+  final int bandwidthEstimate;
+
+  final int bytesLoaded;
+
+  /// Events dropped or merged because the listener was not keeping up.
+  final int droppedEvents;
+  final int coalescedEvents;
+
+  @override
+  String toString() {
+    return '$runtimeType('
+        'timeToFirstFrame: $timeToFirstFrame, '
+        'joinTime: $joinTime, '
+        'rebufferCount: $rebufferCount, '
+        'rebufferDuration: $rebufferDuration, '
+        'droppedFrames: $droppedFrames, '
+        'bitrateSwitches: $bitrateSwitches, '
+        'videoBitrate: $videoBitrate, '
+        'bandwidthEstimate: $bandwidthEstimate, '
+        'bytesLoaded: $bytesLoaded, '
+        'droppedEvents: $droppedEvents, '
+        'coalescedEvents: $coalescedEvents)';
+  }
+}
+
+/// How a player's event queue has coped with its listener so far, see
+/// [VideoPlayerController.getEventSinkStats].
+class VideoEventSinkStats {
+  VideoEventSinkStats._fromMap(Map<dynamic, dynamic> map)
+      : dropped = map['dropped'],
+        coalesced = map['coalesced'];
+
+  /// Events discarded because the queue was full.
+  final int dropped;
+
+  /// Progress events replaced by a newer one of the same type while waiting
+  /// in the queue.
+  final int coalesced;
+
+  @override
+  String toString() =>
+      '$runtimeType(dropped: $dropped, coalesced: $coalesced)';
+}
+
+/// The on-disk cache shared by every network [VideoPlayerController] created
+/// with `useCache: true`.
+///
+/// Android only.
+class VideoPlayerCache {
+  VideoPlayerCache._();
+
+  /// Sets the size cap of the cache in bytes and the query parameters that
+  /// are ignored when computing cache keys, such as rotating auth tokens.
+  static Future<void> configure({
+    int maxCacheSize,
+    List<String> ignoredQueryParameters,
+  }) {
+    return _channel.invokeMethod<void>('configureCache', <String, dynamic>{
+      'maxCacheSize': maxCacheSize,
+      'ignoredQueryParameters': ignoredQueryParameters,
+    });
+  }
+
+  static Future<VideoCacheStats> stats() async {
+    final Map<dynamic, dynamic> map =
+        await _channel.invokeMethod('getCacheStats');
+    return VideoCacheStats._fromMap(map);
+  }
+}
+
+/// Where a [VideoPrefetcher.prefetch] stands.
+enum VideoPrefetchState { queued, fetching, completed, failed, cancelled, removed }
+
+/// A video being, or having been, fetched into the cache ahead of playback.
+class VideoPrefetch {
+  VideoPrefetch._fromMap(Map<dynamic, dynamic> map)
+      : uri = map['uri'],
+        state = VideoPrefetchState.values.firstWhere(
+            (VideoPrefetchState state) => describeEnum(state) == map['state']),
+        priority = map['priority'],
+        bytesFetched = map['bytesFetched'],
+        contentLength = map['contentLength'],
+        error = map['error'];
+
+  final String uri;
+  final VideoPrefetchState state;
+  final int priority;
+  final int bytesFetched;
+
+  /// The number of bytes being fetched, null while unknown.
+  final int contentLength;
+
+  /// Why the prefetch [VideoPrefetchState.failed].
+  final String error;
+
+  @override
+  String toString() {
+    return '$runtimeType('
+        'uri: $uri, '
+        'state: $state, '
+        'priority: $priority, '
+        'bytesFetched: $bytesFetched, '
+        'contentLength: $contentLength, '
+        'error: $error)';
+  }
+}
+
+/// Fetches network videos into the shared [VideoPlayerCache] ahead of
+/// playback, in the background.
+///
+/// Prefetches run by descending priority, a few at a time. Players created
+/// afterwards for a prefetched URI read from the cache even without
+/// `useCache: true`. Finished prefetches are bounded by a quota, beyond which
+/// the least recently played ones are removed again.
+///
+/// Android only.
+class VideoPrefetcher {
+  VideoPrefetcher._();
+
+  /// Queues a prefetch of the network video at [uri].
+  ///
+  /// For a progressive video, [lengthBytes] limits the fetch to its start;
+  /// size it as the seconds wanted times the video's bitrate. HLS and DASH
+  /// videos are fetched whole, only in the best rendition at or below
+  /// [maxBitrate] if one is given. Unless [requiresUnmetered] is false, the
+  /// prefetch waits for an unmetered network such as Wi-Fi.
+  ///
+  /// Prefetching a URI that is already queued or fetching only updates its
+  /// priority.
+  static Future<VideoPrefetch> prefetch(
+    String uri, {
+    Map<String, String> headers,
+    String cacheKey,
+    int priority = 0,
+    int lengthBytes,
+    int maxBitrate,
+    bool requiresUnmetered = true,
+  }) async {
+    final Map<dynamic, dynamic> map =
+        await _channel.invokeMethod('prefetch', <String, dynamic>{
+      'uri': uri,
+      'headers': headers,
+      'cacheKey': cacheKey,
+      'priority': priority,
+      'lengthBytes': lengthBytes,
+      'maxBitrate': maxBitrate,
+      'requiresUnmetered': requiresUnmetered,
+    });
+    return VideoPrefetch._fromMap(map);
+  }
+
+  /// Stops the prefetch of [uri], and with [removeData] also removes what it
+  /// stored. Returns whether there was such a prefetch.
+  static Future<bool> cancel(String uri, {bool removeData = false}) {
+    return _channel.invokeMethod<bool>('cancelPrefetch', <String, dynamic>{
+      'uri': uri,
+      'removeData': removeData,
+    });
+  }
+
+  /// Moves a queued prefetch of [uri] within the queue. Returns whether there
+  /// was such a prefetch.
+  static Future<bool> setPriority(String uri, int priority) {
+    return _channel.invokeMethod<bool>('setPrefetchPriority', <String, dynamic>{
+      'uri': uri,
+      'priority': priority,
+    });
+  }
+
+  /// The prefetch of [uri], or null if there is none.
+  static Future<VideoPrefetch> get(String uri) async {
+    final Map<dynamic, dynamic> map = await _channel
+        .invokeMethod('getPrefetch', <String, dynamic>{'uri': uri});
+    return map == null ? null : VideoPrefetch._fromMap(map);
+  }
+
+  /// Every prefetch that has not been cancelled or removed, in the order their
+  /// URIs were first prefetched.
+  static Future<List<VideoPrefetch>> getAll() async {
+    final List<dynamic> list = await _channel.invokeMethod('getPrefetches');
+    return list
+        .map((dynamic map) => VideoPrefetch._fromMap(map))
+        .toList(growable: false);
+  }
+
+  /// Sets how many prefetches may run at once and the quota in bytes of the
+  /// finished ones. Lowering the quota removes prefetches immediately.
+  static Future<void> configure({int maxConcurrent, int quotaBytes}) {
+    return _channel.invokeMethod<void>('configurePrefetch', <String, dynamic>{
+      'maxConcurrent': maxConcurrent,
+      'quotaBytes': quotaBytes,
+    });
+  }
+
+  /// Every change of state and the progress of running prefetches.
+  static Stream<VideoPrefetch> get updates {
+    return _pluginEvents
+        .where((dynamic event) => event['event'] == 'prefetch')
+        .map((dynamic event) => VideoPrefetch._fromMap(event));
+  }
+}
+
+/// Where the time went while the platform created a player.
+///
+/// Phases that did not run are reported as zero.
+class VideoPlayerCreateTimings {
+  VideoPlayerCreateTimings._fromMap(Map<dynamic, dynamic> map)
+      : queue = _micros(map['queueUs']),
+        buildPlayer = _micros(map['buildPlayerUs']),
+        buildMediaSources = _micros(map['buildMediaSourcesUs']),
+        handoff = _micros(map['handoffUs']),
+        attach = _micros(map['attachUs']),
+        total = _micros(map['totalUs']),
+        fromPool = map['fromPool'] ?? false,
+        fromPreload = map['fromPreload'] ?? false;
+
+  static Duration _micros(int value) => Duration(microseconds: value ?? 0);
+
+  /// Waiting for the background setup thread.
+  final Duration queue;
+
+  /// Building the native player, zero when one was reused from the pool.
+  final Duration buildPlayer;
+  final Duration buildMediaSources;
+
+  /// Waiting for the platform thread once the background work was done.
+  final Duration handoff;
+
+  /// Creating the texture and starting to prepare, on the platform thread.
+  final Duration attach;
+  final Duration total;
+
+  /// Whether a pooled native player was reused.
+  final bool fromPool;
+
+  /// Whether a player prepared by [VideoPlayerController.preload] was adopted.
+  final bool fromPreload;
+
+  @override
+  String toString() {
+    return '$runtimeType('
+        'queue: $queue, '
+        'buildPlayer: $buildPlayer, '
+        'buildMediaSources: $buildMediaSources, '
+        'handoff: $handoff, '
+        'attach: $attach, '
+        'total: $total, '
+        'fromPool: $fromPool, '
+        'fromPreload: $fromPreload)';
+  }
+}
+
+/// A change of the memory pressure the platform is under.
+///
+/// [tier] says how far the plugin went to free memory, each tier including the
+/// ones below it: 1 dropped caches and pooled players, 2 also dropped preloaded
+/// players and builds new players without back buffer, 3 also caps video
+/// tracks to 480p and 4 also hibernates paused players. The tier is held until no signal came in
+/// for a minute, which is reported with [relieved] set.
+class VideoMemoryPressure {
+  VideoMemoryPressure._fromMap(Map<dynamic, dynamic> map)
+      : relieved = map['event'] == 'memoryPressureRelieved',
+        level = map['level'],
+        tier = map['tier'] ?? 0;
+
+  /// Whether the pressure is over and track caps were lifted.
+  final bool relieved;
+
+  /// The Android `ComponentCallbacks2` trim level, null once [relieved].
+  final int level;
+  final int tier;
+
+  @override
+  String toString() =>
+      '$runtimeType(relieved: $relieved, level: $level, tier: $tier)';
+}
+
+/// Why a queue player moved to another item.
+enum VideoQueueTransitionReason { auto, seek, repeat, queueChanged }
+
+/// The item a [VideoPlayerController.queue] player is now playing.
+class VideoQueueTransition {
+  VideoQueueTransition._fromMap(Map<dynamic, dynamic> map)
+      : index = map['index'],
+        reason = _reasonFromName(map['reason']);
+
+  static VideoQueueTransitionReason _reasonFromName(String name) {
+    switch (name) {
+      case 'seek':
+        return VideoQueueTransitionReason.seek;
+      case 'repeat':
+        return VideoQueueTransitionReason.repeat;
+      case 'queueChanged':
+        return VideoQueueTransitionReason.queueChanged;
+      default:
+        return VideoQueueTransitionReason.auto;
+    }
+  }
+
+  /// Position of the new item in the queue.
+  final int index;
+  final VideoQueueTransitionReason reason;
+
+  @override
+  String toString() => '$runtimeType(index: $index, reason: $reason)';
+}
+
 /// Controls a platform video player, and provides updates when the state is
 /// changing.
 ///
@@ -146,9 +739,14 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   /// The name of the asset is given by the [dataSource] argument and must not be
   /// null. The [package] argument must be non-null when the asset comes from a
   /// package and null otherwise.
-  VideoPlayerController.asset(this.dataSource, {this.package})
+  VideoPlayerController.asset(this.dataSource,
+      {this.package, this.bufferingProfile, this.useMediaSession = false})
       : dataSourceType = DataSourceType.asset,
         headers = null,
+        useCache = false,
+        cacheKey = null,
+        trackConstraints = null,
+        queue = null,
         super(VideoPlayerValue(duration: null));
 
   /// Constructs a [VideoPlayerController] playing a video from obtained from
@@ -156,35 +754,268 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
   ///
   /// The URI for the video is given by the [dataSource] argument and must not be
   /// null.
-  VideoPlayerController.network(this.dataSource, {this.headers})
+  ///
+  /// When [useCache] is true the video is read through the shared
+  /// [VideoPlayerCache]. [cacheKey] overrides the key derived from the URI.
+  /// [trackConstraints] limit the initial track selection of adaptive streams.
+  VideoPlayerController.network(this.dataSource,
+      {this.headers,
+      this.useCache = false,
+      this.cacheKey,
+      this.trackConstraints,
+      this.bufferingProfile,
+      this.useMediaSession = false})
       : dataSourceType = DataSourceType.network,
         package = null,
+        queue = null,
+        super(VideoPlayerValue(duration: null));
+
+  /// Constructs a [VideoPlayerController] playing the network videos in
+  /// [dataSources] back to back in one platform player.
+  ///
+  /// The next item is buffered while the current one plays, so transitions
+  /// are gapless. [value] describes the current item; listen to
+  /// [queueTransitions] to follow the queue. Android only.
+  VideoPlayerController.queue(List<String> dataSources,
+      {this.headers,
+      this.useCache = false,
+      this.trackConstraints,
+      this.bufferingProfile,
+      this.useMediaSession = false})
+      : assert(dataSources.isNotEmpty),
+        dataSource = dataSources.first,
+        queue = List<String>.unmodifiable(dataSources),
+        dataSourceType = DataSourceType.network,
+        package = null,
+        cacheKey = null,
         super(VideoPlayerValue(duration: null));
 
   /// Constructs a [VideoPlayerController] playing a video from a file.
   ///
   /// This will load the file from the file-URI given by:
   /// `'file://${file.path}'`.
-  VideoPlayerController.file(File file)
+  VideoPlayerController.file(File file,
+      {this.bufferingProfile, this.useMediaSession = false})
       : dataSource = 'file://${file.path}',
         dataSourceType = DataSourceType.file,
         package = null,
         headers = null,
+        useCache = false,
+        cacheKey = null,
+        trackConstraints = null,
+        queue = null,
         super(VideoPlayerValue(duration: null));
 
+  /// Prepares a paused player for the network video at [dataSource] ahead of
+  /// time.
+  ///
+  /// A later [initialize] of a [VideoPlayerController.network] with the same
+  /// [dataSource] adopts the prepared player instead of creating a new one. At
+  /// most [setMaxPreloads] players are kept; once full, a preload only replaces
+  /// the lowest [priority] entry when its own [priority] is strictly higher.
+  ///
+  /// Returns whether a prepared player is available. Android only.
+  static Future<bool> preload(
+    String dataSource, {
+    Map<String, String> headers,
+    bool useCache = false,
+    String cacheKey,
+    VideoTrackConstraints trackConstraints,
+    VideoBufferingProfile bufferingProfile,
+    int priority = 0,
+  }) async {
+    final Map<String, dynamic> arguments = <String, dynamic>{
+      'uri': dataSource,
+      'headers': headers,
+      'cache': useCache,
+      'cacheKey': cacheKey,
+      'priority': priority,
+      'positionUpdateIntervalMs': _defaultPositionUpdateInterval.inMilliseconds,
+    };
+    if (trackConstraints != null) {
+      arguments.addAll(trackConstraints._toMap());
+    }
+    if (bufferingProfile != null) {
+      arguments.addAll(bufferingProfile._toMap());
+    }
+    final Map<dynamic, dynamic> response =
+        await _channel.invokeMethod('preload', arguments);
+    return response['preloaded'];
+  }
+
+  /// Releases the player prepared by [preload] for [dataSource], if any.
+  static Future<void> cancelPreload(String dataSource) {
+    return _channel.invokeMethod<void>(
+        'cancelPreload', <String, dynamic>{'uri': dataSource});
+  }
+
+  /// Sets how many prepared players [preload] keeps at once.
+  static Future<void> setMaxPreloads(int maxPreloads) {
+    return _channel.invokeMethod<void>(
+        'setMaxPreloads', <String, dynamic>{'maxPreloads': maxPreloads});
+  }
+
+  /// Sets how many disposed native players are kept for reuse by later
+  /// controllers, and how long an unused one is kept before it is released.
+  ///
+  /// Android only.
+  static Future<void> configurePlayerPool({
+    int maxSize = 2,
+    Duration idleTimeout = const Duration(seconds: 30),
+  }) {
+    return _channel.invokeMethod<void>('configurePlayerPool', <String, dynamic>{
+      'maxSize': maxSize,
+      'idleTimeoutMs': idleTimeout.inMilliseconds,
+    });
+  }
+
+  /// Applies [commands] in order in a single platform channel call.
+  ///
+  /// The returned list holds one entry per command: the command's result, or
+  /// a [PlatformException] if it failed. A failing command does not stop the
+  /// ones after it. Commands do not update [value]. Android only.
+  static Future<List<dynamic>> batch(List<VideoPlayerCommand> commands) async {
+    final List<dynamic> replies = await _channel.invokeMethod(
+      'batch',
+      <String, dynamic>{
+        'commands': commands
+            .map((VideoPlayerCommand command) => command._toMap())
+            .toList(),
+      },
+    );
+    return replies.map<dynamic>((dynamic reply) {
+      final Map<dynamic, dynamic> map = reply;
+      if (map.containsKey('error')) {
+        return PlatformException(code: map['error'], message: map['message']);
+      }
+      return map['result'];
+    }).toList();
+  }
+
+  /// Memory pressure signals and how the plugin responded to them. Android
+  /// only.
+  static Stream<VideoMemoryPressure> get memoryPressure {
+    return _pluginEvents
+        .where((dynamic event) =>
+            event['event'] == 'memoryPressure' ||
+            event['event'] == 'memoryPressureRelieved')
+        .map((dynamic event) => VideoMemoryPressure._fromMap(event));
+  }
+
+  /// Handles a trim-memory signal of [level] as if the system had sent it, for
+  /// testing how an app copes. Android only.
+  @visibleForTesting
+  static Future<void> simulateTrimMemory(int level) {
+    return _channel.invokeMethod<void>(
+      'simulateTrimMemory',
+      <String, dynamic>{'level': level},
+    );
+  }
+
+  /// Makes players created afterwards send their frequent events (position,
+  /// play state, buffering and seek completion) as small binary records
+  /// instead of maps, which allocates far less per event when many players
+  /// are active. Other events keep the map format. Android only.
+  static void setCompactEvents(bool enabled) {
+    _compactEvents = enabled;
+  }
+
+  /// Bounds the memory of the cache of frames returned by [getFrames] and
+  /// [getThumbnail]. Clears the cache. Android only.
+  static Future<void> configureThumbnailCache({@required int maxCacheBytes}) {
+    return _channel.invokeMethod<void>(
+      'configureThumbnails',
+      <String, dynamic>{'maxCacheBytes': maxCacheBytes},
+    );
+  }
+
+  /// Limits how many players may hold decoders and buffers at once.
+  ///
+  /// Beyond [maxActivePlayers], the least recently used offscreen player (see
+  /// [setVisibility]) is hibernated first, then the least recently used paused
+  /// one. Visible players that are playing are never hibernated, so the limit
+  /// may be exceeded while only those remain. Hibernated players keep their
+  /// position, speed, volume and whether they were playing, and are restored
+  /// by [play] and [seekTo]; see [VideoPlayerValue.isHibernated]. Zero lifts
+  /// the limit. The budget covers the players of every Flutter engine in the
+  /// app. Android only.
+  static Future<void> configureDecoderBudget({@required int maxActivePlayers}) {
+    return _channel.invokeMethod<void>(
+      'configureDecoderBudget',
+      <String, dynamic>{'maxActivePlayers': maxActivePlayers},
+    );
+  }
+
+  /// Configures the HTTP stack used by network players created afterwards.
+  ///
+  /// With [useSharedClient] all players share one HTTP client whose pool
+  /// keeps up to [maxIdleConnections] connections alive for [keepAlive].
+  /// [maxConnectionsPerHost] bounds the connections open to one host; a
+  /// progressive video holds its connection for as long as it loads, so keep
+  /// this above the number of such videos streaming from one host. Zero lifts
+  /// the bound. Android only.
+  static Future<void> configureHttpStack({
+    bool useSharedClient,
+    int maxIdleConnections,
+    Duration keepAlive,
+    int maxConnectionsPerHost,
+  }) {
+    return _channel.invokeMethod<void>('configureHttpStack', <String, dynamic>{
+      'useSharedClient': useSharedClient,
+      'maxIdleConnections': maxIdleConnections,
+      'keepAliveMs': keepAlive?.inMilliseconds,
+      'maxConnectionsPerHost': maxConnectionsPerHost,
+    });
+  }
+
   int _textureId;
   final String dataSource;
   final Map<String, String> headers;
 
+  /// Whether network data is read through the shared [VideoPlayerCache].
+  final bool useCache;
+
+  /// Key identifying this video in the [VideoPlayerCache], or null to derive
+  /// it from [dataSource].
+  final String cacheKey;
+
+  /// Limits applied to the initial track selection, or null for none.
+  final VideoTrackConstraints trackConstraints;
+
+  /// How much the player buffers, or null for the platform defaults.
+  final VideoBufferingProfile bufferingProfile;
+
+  /// Whether the system media session (lock screen, headset buttons and
+  /// similar) may control this player. The session follows the participating
+  /// player that most recently started playing. Android only.
+  final bool useMediaSession;
+
+  /// The network videos a [VideoPlayerController.queue] was constructed with,
+  /// or null for a single video.
+  final List<String> queue;
+
   /// Describes the type of data source this [VideoPlayerController]
   /// is constructed with.
   final DataSourceType dataSourceType;
 
   final String package;
+
+  /// Whether a playing video keeps playing its audio, with video turned off by
+  /// [setVideoEnabled], while the app is in the background instead of being
+  /// paused. Android only.
+  bool playAudioInBackground = false;
+
   Timer _timer;
+  Duration _positionUpdateInterval = _defaultPositionUpdateInterval;
   bool _isDisposed = false;
   Completer<void> _creatingCompleter;
   StreamSubscription<dynamic> _eventSubscription;
+  final StreamController<VideoPlaybackStats> _statsController =
+      StreamController<VideoPlaybackStats>.broadcast();
+  final StreamController<VideoQueueTransition> _queueController =
+      StreamController<VideoQueueTransition>.broadcast();
+  int _queueIndex = 0;
+  VideoPlayerCreateTimings _createTimings;
   _VideoAppLifeCycleObserver _lifeCycleObserver;
   double _oldSpeed = 1.0;
 
@@ -206,17 +1037,35 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
       case DataSourceType.network:
         dataSourceDescription = <String, dynamic>{
           'uri': dataSource,
-          'headers': headers
+          'uris': queue,
+          'headers': headers,
+          'cache': useCache,
+          'cacheKey': cacheKey,
         };
+        if (trackConstraints != null) {
+          dataSourceDescription.addAll(trackConstraints._toMap());
+        }
         break;
       case DataSourceType.file:
         dataSourceDescription = <String, dynamic>{'uri': dataSource};
     }
+    if (bufferingProfile != null) {
+      dataSourceDescription.addAll(bufferingProfile._toMap());
+    }
+    dataSourceDescription['mediaSession'] = useMediaSession;
+    dataSourceDescription['compactEvents'] = _compactEvents;
+    if (_nativePositionUpdates) {
+      dataSourceDescription['positionUpdateIntervalMs'] =
+          _positionUpdateInterval.inMilliseconds;
+    }
     final Map<dynamic, dynamic> response = await _channel.invokeMethod(
       'create',
       dataSourceDescription,
     );
     _textureId = response['textureId'];
+    if (response['timings'] != null) {
+      _createTimings = VideoPlayerCreateTimings._fromMap(response['timings']);
+    }
     _creatingCompleter.complete(null);
     final Completer<void> initializingCompleter = Completer<void>();
 
@@ -228,19 +1077,74 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
       );
     }
 
+    void onInitialized(Duration duration, Size size) {
+      value = value.copyWith(duration: duration, size: size);
+      initializingCompleter.complete(null);
+      _applyInitialSettings();
+    }
+
+    // Decodes the format written by CompactEventEncoder on Android.
+    void compactEventListener(Uint8List event) {
+      final ByteData data =
+          ByteData.view(event.buffer, event.offsetInBytes, event.lengthInBytes);
+      switch (event[0]) {
+        case _compactInitialized:
+          final int width = data.getInt32(9, Endian.little);
+          final int height = data.getInt32(13, Endian.little);
+          onInitialized(
+            Duration(milliseconds: data.getInt64(1, Endian.little)),
+            Size(width < 0 ? 0.0 : width.toDouble(),
+                height < 0 ? 0.0 : height.toDouble()),
+          );
+          break;
+        case _compactBufferingStart:
+          value = value.copyWith(isBuffering: true);
+          break;
+        case _compactBufferingEnd:
+          value = value.copyWith(isBuffering: false);
+          break;
+        case _compactPlayed:
+          value = value.copyWith(isPlaying: true);
+          break;
+        case _compactPaused:
+          value = value.copyWith(isPlaying: false);
+          break;
+        case _compactPosition:
+          final int position = data.getInt64(1, Endian.little);
+          final int bufferedPosition = data.getInt64(9, Endian.little);
+          value = value.copyWith(
+            position: Duration(milliseconds: position),
+            buffered: <DurationRange>[
+              DurationRange(
+                  Duration(milliseconds: position),
+                  Duration(
+                      milliseconds: bufferedPosition < position
+                          ? position
+                          : bufferedPosition)),
+            ],
+          );
+          break;
+        case _compactSeekCompleted:
+          value = value.copyWith(
+            position: Duration(milliseconds: data.getInt64(1, Endian.little)),
+          );
+          break;
+      }
+    }
+
     void eventListener(dynamic event) {
+      if (event is Uint8List) {
+        compactEventListener(event);
+        return;
+      }
       final Map<dynamic, dynamic> map = event;
       switch (map['event']) {
         case 'initialized':
-          value = value.copyWith(
-            duration: Duration(milliseconds: map['duration']),
-            size: Size(map['width']?.toDouble() ?? 0.0,
+          onInitialized(
+            Duration(milliseconds: map['duration']),
+            Size(map['width']?.toDouble() ?? 0.0,
                 map['height']?.toDouble() ?? 0.0),
           );
-          initializingCompleter.complete(null);
-          _applyLooping();
-          _applyVolume();
-          _applyPlayPause();
           break;
         case 'completed':
           value = value.copyWith(isPlaying: false);
@@ -252,6 +1156,40 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
             buffered: values.map<DurationRange>(toDurationRange).toList(),
           );
           break;
+        case 'stats':
+          _statsController.add(VideoPlaybackStats._fromMap(map));
+          break;
+        case 'seekCompleted':
+          value = value.copyWith(
+            position: Duration(milliseconds: map['position']),
+          );
+          break;
+        case 'hibernated':
+          value = value.copyWith(
+            isHibernated: true,
+            position: Duration(milliseconds: map['position']),
+          );
+          break;
+        case 'restored':
+          value = value.copyWith(isHibernated: false);
+          break;
+        case 'queueItemTransition':
+          final VideoQueueTransition transition =
+              VideoQueueTransition._fromMap(map);
+          _queueIndex = transition.index;
+          if (map['duration'] != null) {
+            value = value.copyWith(
+                duration: Duration(milliseconds: map['duration']));
+          }
+          _queueController.add(transition);
+          break;
+        case 'position':
+          final List<dynamic> values = map['values'];
+          value = value.copyWith(
+            position: Duration(milliseconds: map['position']),
+            buffered: values.map<DurationRange>(toDurationRange).toList(),
+          );
+          break;
         case 'bufferingStart':
           value = value.copyWith(isBuffering: true);
           break;
@@ -299,6 +1237,8 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
       _lifeCycleObserver.dispose();
     }
     _isDisposed = true;
+    await _statsController.close();
+    await _queueController.close();
     super.dispose();
   }
 
@@ -317,6 +1257,31 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     await _applyPlayPause();
   }
 
+  Future<void> _applyInitialSettings() async {
+    if (!_supportsBatch) {
+      _applyLooping();
+      _applyVolume();
+      _applyPlayPause();
+      return;
+    }
+    if (_isDisposed) {
+      return;
+    }
+    final List<dynamic> results = await batch(<VideoPlayerCommand>[
+      VideoPlayerCommand(this, 'setLooping',
+          <String, dynamic>{'looping': value.isLooping}),
+      VideoPlayerCommand(
+          this, 'setVolume', <String, dynamic>{'volume': value.volume}),
+      VideoPlayerCommand(this, value.isPlaying ? 'play' : 'pause'),
+    ]);
+    // Fail the way the separate calls would have.
+    for (dynamic result in results) {
+      if (result is PlatformException) {
+        throw result;
+      }
+    }
+  }
+
   Future<void> _applyLooping() async {
     if (!value.initialized || _isDisposed) {
       return;
@@ -336,19 +1301,10 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
         'play',
         <String, dynamic>{'textureId': _textureId},
       );
-      _timer = Timer.periodic(
-        const Duration(milliseconds: 500),
-        (Timer timer) async {
-          if (_isDisposed) {
-            return;
-          }
-          final Duration newPosition = await position;
-          if (_isDisposed) {
-            return;
-          }
-          value = value.copyWith(position: newPosition);
-        },
-      );
+      if (_nativePositionUpdates) {
+        return;
+      }
+      _startPositionTimer();
     } else {
       _timer?.cancel();
       await _channel.invokeMethod(
@@ -358,6 +1314,26 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     }
   }
 
+  void _startPositionTimer() {
+    _timer?.cancel();
+    if (_positionUpdateInterval == Duration.zero) {
+      return;
+    }
+    _timer = Timer.periodic(
+      _positionUpdateInterval,
+      (Timer timer) async {
+        if (_isDisposed) {
+          return;
+        }
+        final Duration newPosition = await position;
+        if (_isDisposed) {
+          return;
+        }
+        value = value.copyWith(position: newPosition);
+      },
+    );
+  }
+
   Future<void> _applyVolume() async {
     if (!value.initialized || _isDisposed) {
       return;
@@ -381,7 +1357,14 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     );
   }
 
-  Future<void> seekTo(Duration moment) async {
+  /// Seeks to [moment], landing as described by [mode].
+  ///
+  /// On Android, a seek issued while an earlier one is still in flight only
+  /// replaces the seek waiting behind it, so a burst of seeks while dragging a
+  /// slider does not pile up. [value] reports the position actually reached
+  /// once the seek completes.
+  Future<void> seekTo(Duration moment,
+      {VideoSeekMode mode = VideoSeekMode.exact}) async {
     if (_isDisposed) {
       return;
     }
@@ -393,6 +1376,7 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     await _channel.invokeMethod('seekTo', <String, dynamic>{
       'textureId': _textureId,
       'location': moment.inMilliseconds,
+      'mode': describeEnum(mode),
     });
     value = value.copyWith(position: moment);
   }
@@ -410,6 +1394,210 @@ class VideoPlayerController extends ValueNotifier<VideoPlayerValue> {
     return await _channel.invokeMethod('getPlaybackSpeed');
   }
 
+  /// Periodic playback metrics, pushed once [setStatsUpdateInterval] was set.
+  Stream<VideoPlaybackStats> get stats => _statsController.stream;
+
+  /// Returns the current playback metrics. Android only.
+  Future<VideoPlaybackStats> getStats() async {
+    if (_isDisposed) {
+      return null;
+    }
+    final Map<dynamic, dynamic> map = await _channel.invokeMethod(
+      'getStats',
+      <String, dynamic>{'textureId': _textureId},
+    );
+    return VideoPlaybackStats._fromMap(map);
+  }
+
+  /// Returns how many events this player's event queue dropped or merged.
+  /// Cheaper than [getStats] when only these counts are needed. Android only.
+  Future<VideoEventSinkStats> getEventSinkStats() async {
+    if (_isDisposed) {
+      return null;
+    }
+    final Map<dynamic, dynamic> map = await _channel.invokeMethod(
+      'getEventSinkStats',
+      <String, dynamic>{'textureId': _textureId},
+    );
+    return VideoEventSinkStats._fromMap(map);
+  }
+
+  /// Makes the platform push [stats] every [interval], or stops it when
+  /// [interval] is zero. Android only.
+  Future<void> setStatsUpdateInterval(Duration interval) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('setStatsUpdateInterval', <String, dynamic>{
+      'textureId': _textureId,
+      'intervalMs': interval.inMilliseconds,
+    });
+  }
+
+  /// How often [value] picks up the playing position.
+  Duration get positionUpdateInterval => _positionUpdateInterval;
+
+  /// Makes [value] pick up the playing position every [interval] while
+  /// playing, or stops the updates when [interval] is zero. Defaults to 500
+  /// milliseconds.
+  ///
+  /// May be called before [initialize].
+  Future<void> setPositionUpdateInterval(Duration interval) async {
+    _positionUpdateInterval = interval;
+    if (_creatingCompleter == null) {
+      return;
+    }
+    await _creatingCompleter.future;
+    if (_isDisposed) {
+      return;
+    }
+    if (!_nativePositionUpdates) {
+      if (_timer?.isActive ?? false) {
+        _startPositionTimer();
+      }
+      return;
+    }
+    await _channel.invokeMethod<void>(
+        'setPositionUpdateInterval', <String, dynamic>{
+      'textureId': _textureId,
+      'intervalMs': interval.inMilliseconds,
+    });
+  }
+
+  /// Replaces the adaptive track selection limits of [this], for example
+  /// after the [VideoPlayer] widget was resized. Android only.
+  Future<void> setTrackConstraints(VideoTrackConstraints constraints) async {
+    if (_isDisposed) {
+      return;
+    }
+    final Map<String, dynamic> arguments = constraints._toMap();
+    arguments['textureId'] = _textureId;
+    await _channel.invokeMethod<void>('setTrackConstraints', arguments);
+  }
+
+  /// How long the platform took to create the player, once [initialize] got
+  /// past that step. Null on platforms that do not report it.
+  VideoPlayerCreateTimings get createTimings => _createTimings;
+
+  /// Decodes the frames of this video at [positions] as JPEG images, without
+  /// affecting playback.
+  ///
+  /// Frames are downscaled to fit within [width] x [height]; a null dimension
+  /// is left unconstrained. Unless [exact] is true the closest key frames are
+  /// returned, which is much cheaper. Frames that could not be decoded are
+  /// null. Requests still running when [this] is disposed complete with a
+  /// [PlatformException]. Android only.
+  Future<List<Uint8List>> getFrames(List<Duration> positions,
+      {int width, int height, bool exact = false}) async {
+    final Map<String, dynamic> arguments = <String, dynamic>{
+      'timesMs':
+          positions.map((Duration position) => position.inMilliseconds).toList(),
+      'width': width,
+      'height': height,
+      'exact': exact,
+      'textureId': _textureId,
+    };
+    if (dataSourceType == DataSourceType.asset) {
+      arguments['asset'] = dataSource;
+      arguments['package'] = package;
+    } else {
+      arguments['uri'] = dataSource;
+      arguments['headers'] = headers;
+    }
+    final List<dynamic> frames =
+        await _channel.invokeMethod('getFrames', arguments);
+    return frames.cast<Uint8List>();
+  }
+
+  /// Decodes a single frame, see [getFrames]. Android only.
+  Future<Uint8List> getThumbnail(Duration position,
+      {int width, int height, bool exact = false}) async {
+    final List<Uint8List> frames = await getFrames(<Duration>[position],
+        width: width, height: height, exact: exact);
+    return frames.single;
+  }
+
+  /// Turns video decoding off or back on, keeping audio playing.
+  ///
+  /// With video off, adaptive streams stop downloading video and use
+  /// audio-only renditions where the stream has them. Turning video back on
+  /// resumes it at the current position. Android only.
+  Future<void> setVideoEnabled(bool enabled) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('setVideoEnabled', <String, dynamic>{
+      'textureId': _textureId,
+      'enabled': enabled,
+    });
+  }
+
+  /// Tells the platform whether this player is on screen. Offscreen players
+  /// are hibernated first when over the [configureDecoderBudget]. Android only.
+  Future<void> setVisibility(bool visible) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('setVisibility', <String, dynamic>{
+      'textureId': _textureId,
+      'visible': visible,
+    });
+  }
+
+  /// Item changes of a [VideoPlayerController.queue] player.
+  Stream<VideoQueueTransition> get queueTransitions => _queueController.stream;
+
+  /// Position of the current item in the queue, as of the last
+  /// [queueTransitions] event.
+  int get queueIndex => _queueIndex;
+
+  /// Inserts the network video at [dataSource] into the queue at [index], or
+  /// appends it when [index] is null. Android only.
+  Future<void> addToQueue(String dataSource, {int index}) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('addToQueue', <String, dynamic>{
+      'textureId': _textureId,
+      'uri': dataSource,
+      'index': index,
+    });
+  }
+
+  /// Removes the item at [index] from the queue. Android only.
+  Future<void> removeFromQueue(int index) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('removeFromQueue', <String, dynamic>{
+      'textureId': _textureId,
+      'index': index,
+    });
+  }
+
+  /// Moves the queue item at [from] to [to]. Android only.
+  Future<void> moveQueueItem(int from, int to) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('moveQueueItem', <String, dynamic>{
+      'textureId': _textureId,
+      'from': from,
+      'to': to,
+    });
+  }
+
+  /// Starts the queue item at [index] from its beginning. Android only.
+  Future<void> skipToQueueItem(int index) async {
+    if (_isDisposed) {
+      return;
+    }
+    await _channel.invokeMethod<void>('skipToQueueItem', <String, dynamic>{
+      'textureId': _textureId,
+      'index': index,
+    });
+  }
+
   /// Sets the audio volume of [this].
   ///
   /// [volume] indicates a value between 0.0 (silent) and 1.0 (full volume) on a
@@ -424,6 +1612,7 @@ class _VideoAppLifeCycleObserver extends Object with WidgetsBindingObserver {
   _VideoAppLifeCycleObserver(this._controller);
 
   bool _wasPlayingBeforePause = false;
+  bool _isAudioOnly = false;
   final VideoPlayerController _controller;
 
   void initialize() {
@@ -435,10 +1624,20 @@ class _VideoAppLifeCycleObserver extends Object with WidgetsBindingObserver {
     switch (state) {
       case AppLifecycleState.paused:
         _wasPlayingBeforePause = _controller.value.isPlaying;
-        _controller.pause();
+        _isAudioOnly = _wasPlayingBeforePause &&
+            _controller.playAudioInBackground &&
+            Platform.isAndroid;
+        if (_isAudioOnly) {
+          _controller.setVideoEnabled(false);
+        } else {
+          _controller.pause();
+        }
         break;
       case AppLifecycleState.resumed:
-        if (_wasPlayingBeforePause) {
+        if (_isAudioOnly) {
+          _isAudioOnly = false;
+          _controller.setVideoEnabled(true);
+        } else if (_wasPlayingBeforePause) {
           _controller.play();
         }
         break;
@@ -1,5 +1,7 @@
 import 'dart:async';
+import 'dart:typed_data';
 import 'package:flutter/foundation.dart';
+import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
 import 'package:video_player_header/video_player_header.dart';
 import 'package:flutter_test/flutter_test.dart';
@@ -25,10 +27,23 @@ class FakeController extends ValueNotifier<VideoPlayerValue>
   @override
   String get package => null;
   @override
+  bool get useCache => false;
+  @override
+  String get cacheKey => null;
+  @override
+  VideoTrackConstraints get trackConstraints => null;
+  @override
+  VideoBufferingProfile get bufferingProfile => null;
+  @override
+  bool get useMediaSession => false;
+  @override
+  List<String> get queue => null;
+  @override
   Future<Duration> get position async => value.position;
 
   @override
-  Future<void> seekTo(Duration moment) async {}
+  Future<void> seekTo(Duration moment,
+      {VideoSeekMode mode = VideoSeekMode.exact}) async {}
   @override
   Future<void> setVolume(double volume) async {}
   @override
@@ -39,6 +54,49 @@ class FakeController extends ValueNotifier<VideoPlayerValue>
   Future<void> play() async {}
   @override
   Future<void> setLooping(bool looping) async {}
+  @override
+  Future<void> setTrackConstraints(VideoTrackConstraints constraints) async {}
+  @override
+  Stream<VideoPlaybackStats> get stats => const Stream<VideoPlaybackStats>.empty();
+  @override
+  Future<VideoPlaybackStats> getStats() async => null;
+  @override
+  Future<VideoEventSinkStats> getEventSinkStats() async => null;
+  @override
+  Future<void> setStatsUpdateInterval(Duration interval) async {}
+  @override
+  Duration get positionUpdateInterval => const Duration(milliseconds: 500);
+  @override
+  Future<void> setPositionUpdateInterval(Duration interval) async {}
+  @override
+  Stream<VideoQueueTransition> get queueTransitions =>
+      const Stream<VideoQueueTransition>.empty();
+  @override
+  int get queueIndex => 0;
+  @override
+  VideoPlayerCreateTimings get createTimings => null;
+  @override
+  Future<void> setVisibility(bool visible) async {}
+  @override
+  Future<void> setVideoEnabled(bool enabled) async {}
+  @override
+  bool playAudioInBackground = false;
+  @override
+  Future<List<Uint8List>> getFrames(List<Duration> positions,
+          {int width, int height, bool exact = false}) async =>
+      <Uint8List>[];
+  @override
+  Future<Uint8List> getThumbnail(Duration position,
+          {int width, int height, bool exact = false}) async =>
+      null;
+  @override
+  Future<void> addToQueue(String dataSource, {int index}) async {}
+  @override
+  Future<void> removeFromQueue(int index) async {}
+  @override
+  Future<void> moveQueueItem(int from, int to) async {}
+  @override
+  Future<void> skipToQueueItem(int index) async {}
 }
 
 void main() {
@@ -75,4 +133,107 @@ void main() {
         ),
         findsOneWidget);
   });
+
+  group('compact events', () {
+    const MethodChannel channel = MethodChannel('flutter.io/videoPlayer');
+    const String eventChannel = 'flutter.io/videoPlayer/videoEvents1';
+    VideoPlayerController controller;
+
+    // Encodes an event the way CompactEventEncoder does on Android.
+    Uint8List encode(int type,
+        {List<int> longs = const <int>[], List<int> ints = const <int>[]}) {
+      final ByteData data = ByteData(1 + 8 * longs.length + 4 * ints.length);
+      data.setUint8(0, type);
+      int offset = 1;
+      for (int value in longs) {
+        data.setInt64(offset, value, Endian.little);
+        offset += 8;
+      }
+      for (int value in ints) {
+        data.setInt32(offset, value, Endian.little);
+        offset += 4;
+      }
+      return data.buffer.asUint8List();
+    }
+
+    Future<void> send(Uint8List event) async {
+      await ServicesBinding.instance.defaultBinaryMessenger
+          .handlePlatformMessage(
+              eventChannel,
+              const StandardMethodCodec().encodeSuccessEnvelope(event),
+              (ByteData reply) {});
+    }
+
+    setUp(() async {
+      TestWidgetsFlutterBinding.ensureInitialized();
+      channel.setMockMethodCallHandler((MethodCall call) async {
+        if (call.method == 'create') {
+          return <String, dynamic>{'textureId': 1};
+        }
+        return null;
+      });
+      const MethodChannel(eventChannel)
+          .setMockMethodCallHandler((MethodCall call) async => null);
+      controller = VideoPlayerController.network('https://127.0.0.1/a.mp4');
+      final Future<void> initialized = controller.initialize();
+      // Let create reply and the event stream subscribe.
+      for (int i = 0; i < 5; i++) {
+        await Future<void>.delayed(Duration.zero);
+      }
+      await send(encode(1, longs: <int>[90000], ints: <int>[1920, -1]));
+      await initialized;
+    });
+
+    tearDown(() async {
+      await controller.dispose();
+      channel.setMockMethodCallHandler(null);
+      const MethodChannel(eventChannel).setMockMethodCallHandler(null);
+    });
+
+    test('initialized', () {
+      expect(controller.value.initialized, isTrue);
+      expect(controller.value.duration, const Duration(seconds: 90));
+      // An unknown height is sent as -1.
+      expect(controller.value.size, const Size(1920, 0));
+    });
+
+    test('buffering start and end', () async {
+      await send(encode(2));
+      expect(controller.value.isBuffering, isTrue);
+      await send(encode(3));
+      expect(controller.value.isBuffering, isFalse);
+    });
+
+    test('played and paused', () async {
+      await send(encode(4));
+      expect(controller.value.isPlaying, isTrue);
+      await send(encode(5));
+      expect(controller.value.isPlaying, isFalse);
+    });
+
+    test('position', () async {
+      // Beyond 32 bits, so both halves of the little-endian int64 count.
+      await send(encode(6, longs: <int>[5000000000, 5000004000]));
+      expect(controller.value.position,
+          const Duration(milliseconds: 5000000000));
+      expect(controller.value.buffered, hasLength(1));
+      expect(controller.value.buffered.first.start,
+          const Duration(milliseconds: 5000000000));
+      expect(controller.value.buffered.first.end,
+          const Duration(milliseconds: 5000004000));
+    });
+
+    test('position ahead of the buffered position', () async {
+      await send(encode(6, longs: <int>[5000, 3000]));
+      expect(controller.value.buffered.first.start,
+          const Duration(milliseconds: 5000));
+      expect(controller.value.buffered.first.end,
+          const Duration(milliseconds: 5000));
+    });
+
+    test('seek completed', () async {
+      await send(encode(7, longs: <int>[65536]));
+      expect(controller.value.position, const Duration(milliseconds: 65536));
+    });
+  });
 }